@@ -1,12 +1,32 @@
 package pages;
 
 import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.support.ui.WebDriverWait;
 import org.openqa.selenium.TimeoutException;
 import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.InvalidElementStateException;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriverException;
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import utils.JourneyState;
+import utils.TestConfig;
+import utils.TimedWait;
 
 /**
  * Base page class, parent class for all page objects
@@ -16,26 +36,81 @@ public class BasePage {
     protected WebDriver driver;
     protected WebDriverWait wait;
     
+    // Elements already found on this page instance, keyed by locator.
+    // Cleared when the page navigates; stale entries are detected on use and looked up again.
+    private final Map<By, WebElement> elementCache = new HashMap<>();
+    
     // Page title locator
     protected final By titleLocator = By.tagName("title");
     
+    // Sets all given field values in one script call. Each field is [strategy, selector, value];
+    // the value is set through the native setter and input, change and blur events are fired.
+    // Returns the indexes of fields that were not found or not visible.
+    private static final String FILL_FIELDS_SCRIPT =
+        "var fields = arguments[0], missing = [];" +
+        "for (var i = 0; i < fields.length; i++) {" +
+        "  var f = fields[i], el = null;" +
+        "  if (f[0] === 'id') { el = document.getElementById(f[1]); }" +
+        "  else if (f[0] === 'name') { el = document.getElementsByName(f[1])[0] || null; }" +
+        "  else if (f[0] === 'css') { el = document.querySelector(f[1]); }" +
+        "  else if (f[0] === 'xpath') { el = document.evaluate(f[1], document, null, XPathResult.FIRST_ORDERED_NODE_TYPE, null).singleNodeValue; }" +
+        "  if (!el || !(el.offsetWidth || el.offsetHeight || el.getClientRects().length)) { missing.push(i); continue; }" +
+        "  var proto = el instanceof HTMLTextAreaElement ? HTMLTextAreaElement.prototype" +
+        "    : el instanceof HTMLSelectElement ? HTMLSelectElement.prototype : HTMLInputElement.prototype;" +
+        "  Object.getOwnPropertyDescriptor(proto, 'value').set.call(el, f[2]);" +
+        "  el.dispatchEvent(new Event('input', {bubbles: true}));" +
+        "  el.dispatchEvent(new Event('change', {bubbles: true}));" +
+        "  el.dispatchEvent(new FocusEvent('blur'));" +
+        "}" +
+        "return missing;";
+    
+    // Hides (arguments[2] true) or shows again the descendants of arguments[0] matching selector arguments[1]
+    private static final String MASK_SCRIPT =
+        "var hide = arguments[2];" +
+        "arguments[0].querySelectorAll(arguments[1]).forEach(function (el) {" +
+        "  if (hide) { el.dataset.visualMask = el.style.visibility; el.style.visibility = 'hidden'; }" +
+        "  else if (el.dataset.visualMask !== undefined) { el.style.visibility = el.dataset.visualMask; delete el.dataset.visualMask; }" +
+        "});";
+    
     /**
      * Constructor
      * @param driver WebDriver instance
      */
     public BasePage(WebDriver driver) {
         this.driver = driver;
-        this.wait = new WebDriverWait(driver, 10);
+        this.wait = new TimedWait(driver, waitSeconds());
+    }
+    
+    /**
+     * @return Timeout of the page objects' waits in seconds (-Delteshop.wait.seconds, default 10)
+     */
+    static long waitSeconds() {
+        return TestConfig.getInt("wait.seconds", 10);
+    }
+    
+    /**
+     * Get the wait for the page to become ready, used by constructors
+     * @param readyTimeoutSeconds Longest wait for the page to become ready (capped at the usual wait timeout)
+     * @return Page's wait, or a shorter one
+     */
+    protected WebDriverWait readyWait(long readyTimeoutSeconds) {
+        return readyTimeoutSeconds >= waitSeconds() ? wait : new TimedWait(driver, readyTimeoutSeconds);
     }
     
     /**
      * Wait for element to be visible and return it
+     * A cached element is reused when it is still attached and visible.
      * @param locator Element locator
      * @return Found WebElement
      */
     protected WebElement waitAndReturnElement(By locator) {
-        this.wait.until(ExpectedConditions.visibilityOfElementLocated(locator));
-        return this.driver.findElement(locator);
+        WebElement cached = getCachedElement(locator, true);
+        if (cached != null) {
+            return cached;
+        }
+        WebElement element = this.wait.until(ExpectedConditions.visibilityOfElementLocated(locator));
+        elementCache.put(locator, element);
+        return element;
     }
     
     /**
@@ -44,8 +119,87 @@ public class BasePage {
      * @return Found WebElement
      */
     protected WebElement waitAndReturnClickableElement(By locator) {
-        this.wait.until(ExpectedConditions.elementToBeClickable(locator));
-        return this.driver.findElement(locator);
+        WebElement element = this.wait.until(ExpectedConditions.elementToBeClickable(locator));
+        elementCache.put(locator, element);
+        return element;
+    }
+    
+    /**
+     * Get cached element if it is still attached to the page
+     * @param locator Element locator
+     * @param mustBeVisible Whether a hidden element counts as a miss
+     * @return Cached element, or null if there is none or it went stale
+     */
+    private WebElement getCachedElement(By locator, boolean mustBeVisible) {
+        WebElement cached = elementCache.get(locator);
+        if (cached == null) {
+            return null;
+        }
+        try {
+            if (cached.isDisplayed() || !mustBeVisible) {
+                return cached;
+            }
+        } catch (StaleElementReferenceException e) {
+            System.out.println("Cached element went stale, looking it up again: " + locator);
+        }
+        elementCache.remove(locator);
+        return null;
+    }
+    
+    /**
+     * Run action on the cached element without checking it first
+     * A stale or no longer interactable element is dropped from the cache.
+     * @param locator Element locator
+     * @param action Action to run
+     * @return Whether the action ran on a cached element
+     */
+    private boolean useCachedElement(By locator, Consumer<WebElement> action) {
+        WebElement cached = elementCache.get(locator);
+        if (cached == null) {
+            return false;
+        }
+        try {
+            action.accept(cached);
+            return true;
+        } catch (StaleElementReferenceException | InvalidElementStateException e) {
+            System.out.println("Cached element not usable (" + e.getClass().getSimpleName() + "), looking it up again: " + locator);
+            elementCache.remove(locator);
+            return false;
+        }
+    }
+    
+    /**
+     * Forget all cached elements, e.g. after the page navigated
+     */
+    protected void clearElementCache() {
+        elementCache.clear();
+    }
+    
+    /**
+     * Navigate to URL
+     * In journey mode the navigation is skipped when a read-only test left the session on the URL.
+     * @param url Page URL
+     * @return Whether the page was loaded (false when the navigation was skipped)
+     */
+    protected boolean navigateTo(String url) {
+        clearElementCache();
+        return navigateTo(driver, url);
+    }
+    
+    /**
+     * Navigate to URL without a page object (e.g. to start an asynchronous transition)
+     * In journey mode the navigation is skipped when a read-only test left the session on the URL.
+     * @param driver WebDriver instance
+     * @param url Page URL
+     * @return Whether the page was loaded (false when the navigation was skipped)
+     */
+    static boolean navigateTo(WebDriver driver, String url) {
+        if (JourneyState.canSkipNavigation(driver, url)) {
+            System.out.println("Journey mode: session is already on " + url + ", navigation skipped.");
+            return false;
+        }
+        driver.get(url);
+        return true;
     }
     
     /**
@@ -61,7 +215,9 @@ public class BasePage {
      * @param locator Element locator
      */
     protected void clickElement(By locator) {
-        waitAndReturnClickableElement(locator).click();
+        if (!useCachedElement(locator, WebElement::click)) {
+            waitAndReturnClickableElement(locator).click();
+        }
     }
     
     /**
@@ -70,9 +226,82 @@ public class BasePage {
      * @param text Text to enter
      */
     protected void enterText(By locator, String text) {
-        WebElement element = waitAndReturnElement(locator);
-        element.clear();
-        element.sendKeys(text);
+        Consumer<WebElement> typeText = element -> {
+            element.clear();
+            element.sendKeys(text);
+        };
+        if (!useCachedElement(locator, typeText)) {
+            typeText.accept(waitAndReturnElement(locator));
+        }
+    }
+    
+    /**
+     * Fill several fields with one script call instead of typing into each one
+     * @param values Field locators mapped to values (use a LinkedHashMap to keep the fill order)
+     */
+    protected void fillFields(Map<By, String> values) {
+        fillFields(values, Collections.<By>emptySet());
+    }
+    
+    /**
+     * Fill several fields with one script call, typing only into the given fields
+     * Fields with other locator types than id, name, css or xpath, and fields the script
+     * does not find visible, fall back to enterText (with its wait).
+     * @param values Field locators mapped to values (use a LinkedHashMap to keep the fill order)
+     * @param typedFields Fields that react to keystrokes and must be typed key by key
+     */
+    protected void fillFields(Map<By, String> values, Set<By> typedFields) {
+        List<By> scriptLocators = new ArrayList<>();
+        List<List<String>> scriptFields = new ArrayList<>();
+        for (Map.Entry<By, String> entry : values.entrySet()) {
+            String[] selector = toScriptSelector(entry.getKey());
+            if (selector != null && !typedFields.contains(entry.getKey())) {
+                scriptLocators.add(entry.getKey());
+                scriptFields.add(Arrays.asList(selector[0], selector[1], entry.getValue()));
+            }
+        }
+        
+        if (!scriptFields.isEmpty()) {
+            List<?> missing = (List<?>) ((JavascriptExecutor) driver).executeScript(FILL_FIELDS_SCRIPT, scriptFields);
+            for (Object index : missing) {
+                By locator = scriptLocators.get(((Number) index).intValue());
+                System.out.println("Field not ready for bulk fill, typing instead: " + locator);
+                enterText(locator, values.get(locator));
+            }
+        }
+        
+        for (Map.Entry<By, String> entry : values.entrySet()) {
+            if (!scriptLocators.contains(entry.getKey())) {
+                enterText(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+    
+    /**
+     * Convert locator to [strategy, selector] for FILL_FIELDS_SCRIPT
+     * @param locator Element locator
+     * @return Strategy and selector, or null if the locator type is not supported by the script
+     */
+    private static String[] toScriptSelector(By locator) {
+        // By.toString() has the form "By.<strategy>: <selector>"
+        String description = locator.toString();
+        int separator = description.indexOf(": ");
+        if (separator < 0) {
+            return null;
+        }
+        String selector = description.substring(separator + 2);
+        switch (description.substring(0, separator)) {
+            case "By.id":
+                return new String[] {"id", selector};
+            case "By.name":
+                return new String[] {"name", selector};
+            case "By.cssSelector":
+                return new String[] {"css", selector};
+            case "By.xpath":
+                return new String[] {"xpath", selector};
+            default:
+                return null;
+        }
     }
     
     /**
@@ -90,8 +319,11 @@ public class BasePage {
      * @return Whether element exists
      */
     protected boolean isElementPresent(By locator) {
+        if (getCachedElement(locator, false) != null) {
+            return true;
+        }
         try {
-            wait.until(ExpectedConditions.presenceOfElementLocated(locator));
+            elementCache.put(locator, wait.until(ExpectedConditions.presenceOfElementLocated(locator)));
             return true;
         } catch (Exception e) {
             return false;
@@ -105,7 +337,7 @@ public class BasePage {
      */
     protected boolean isElementPresentAndVisible(By locator) {
         try {
-            wait.until(ExpectedConditions.visibilityOfElementLocated(locator));
+            waitAndReturnElement(locator);
             return true;
         } catch (org.openqa.selenium.TimeoutException | org.openqa.selenium.NoSuchElementException e) {
             // Element not found or not visible within the timeout
@@ -113,10 +345,50 @@ public class BasePage {
         }
     }
     
+    /**
+     * Take screenshot of a single element
+     * @param locator Element locator
+     * @return Decoded screenshot image
+     */
+    protected BufferedImage captureElementScreenshot(By locator) {
+        return captureElementScreenshot(locator, null);
+    }
+    
+    /**
+     * Take screenshot of a single element with its changing parts hidden
+     * Matching descendants are made invisible (their space in the layout is kept) while
+     * the screenshot is taken, so content such as product images and prices does not
+     * make the visual check fail.
+     * @param locator Element locator
+     * @param maskSelector CSS selector of the descendants to hide, or null for none
+     * @return Decoded screenshot image
+     */
+    protected BufferedImage captureElementScreenshot(By locator, String maskSelector) {
+        WebElement element = waitAndReturnElement(locator);
+        if (maskSelector != null) {
+            ((JavascriptExecutor) driver).executeScript(MASK_SCRIPT, element, maskSelector, true);
+        }
+        byte[] png;
+        try {
+            png = element.getScreenshotAs(OutputType.BYTES);
+        } finally {
+            if (maskSelector != null) {
+                ((JavascriptExecutor) driver).executeScript(MASK_SCRIPT, element, maskSelector, false);
+            }
+        }
+        try {
+            return ImageIO.read(new ByteArrayInputStream(png));
+        } catch (IOException e) {
+            throw new WebDriverException("Could not decode screenshot of element: " + locator, e);
+        }
+    }
+    
     /**
      * Wait for page to load
+     * Called after navigation, so cached elements of the previous page are dropped.
      */
     protected void waitForPageLoad() {
+        clearElementCache();
         wait.until(ExpectedConditions.visibilityOfElementLocated(By.tagName("body")));
     }
 }
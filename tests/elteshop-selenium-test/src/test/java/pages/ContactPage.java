@@ -1,15 +1,22 @@
 package pages;
 
 import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.ui.ExpectedConditions;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import utils.QueryCache;
 
 /**
  * Contact page object class
  * Handles interactions with the contact page
  */
 public class ContactPage extends BasePage {
+    public static final String URL = "https://elteshop.com/index.php?route=information/contact";
+
     // Locators
     private final By nameInputLocator = By.id("form-element-name");
     private final By emailInputLocator = By.id("form-element-email");
@@ -17,9 +24,69 @@ public class ContactPage extends BasePage {
     // GDPR consent checkbox locator based on label's 'for' attribute and common pattern
     private final By gdprConsentCheckboxLocator = By.id("form-element-gdpr_consent");
     private final By continueButtonLocator = By.cssSelector(".buttons.contact-buttons .btn.btn-primary");
+    private final By contactFormLocator = By.id("contact");
     private final By contactInfoLocator = By.id("contact-info");
     private final By successMessageLocator = By.cssSelector(".alert-success");
 
+    // Form scripts use the same elements as the locators above
+    private static final String RESET_FORM_SCRIPT =
+        "var root = document.getElementById('contact');" +
+        "if (!root) { return false; }" +
+        "var form = root.tagName === 'FORM' ? root : root.querySelector('form');" +
+        "if (form) { form.reset(); }" +
+        "['form-element-name', 'form-element-email', 'form-element-enquiry'].forEach(function (id) {" +
+        "  var el = document.getElementById(id);" +
+        "  if (el) { el.value = ''; }" +
+        "});" +
+        "var consent = document.getElementById('form-element-gdpr_consent');" +
+        "if (consent && consent.checked !== arguments[0]) {" +
+        "  consent.checked = arguments[0];" +
+        "  consent.dispatchEvent(new Event('change', {bubbles: true}));" +
+        "}" +
+        "return true;";
+    // Reads every field's value and HTML validity state, the form's checkValidity() and the
+    // continue button's visibility; checkValidity() does not show the browser's validation bubbles
+    private static final String FORM_STATE_SCRIPT =
+        "function field(id) {" +
+        "  var el = document.getElementById(id);" +
+        "  return el ? {value: el.type === 'checkbox' ? String(el.checked) : el.value, type: el.type, required: el.required," +
+        "    valid: el.validity.valid, valueMissing: el.validity.valueMissing, typeMismatch: el.validity.typeMismatch," +
+        "    message: el.validationMessage} : null;" +
+        "}" +
+        "var root = document.getElementById('contact');" +
+        "var form = root && (root.tagName === 'FORM' ? root : root.querySelector('form'));" +
+        "var button = document.querySelector('.buttons.contact-buttons .btn.btn-primary');" +
+        "return {name: field('form-element-name'), email: field('form-element-email')," +
+        "  enquiry: field('form-element-enquiry'), consent: field('form-element-gdpr_consent')," +
+        "  formValid: form ? form.checkValidity() : null," +
+        "  buttonVisible: !!(button && (button.offsetWidth || button.offsetHeight || button.getClientRects().length))};";
+
+    /**
+     * Values and HTML validity state of the contact form, read with a single script call
+     * Each field is a map {value, type, required, valid, valueMissing, typeMismatch, message}
+     * (message is the browser's validationMessage), or null when the field is missing.
+     * The consent checkbox's value is "true" or "false".
+     */
+    public static final class FormState {
+        public final Map<String, Object> name;
+        public final Map<String, Object> email;
+        public final Map<String, Object> enquiry;
+        public final Map<String, Object> gdprConsent;
+        // Result of the form's checkValidity(), null when the form is missing
+        public final Boolean formValid;
+        public final boolean continueButtonVisible;
+
+        @SuppressWarnings("unchecked")
+        FormState(Map<String, Object> state) {
+            this.name = (Map<String, Object>) state.get("name");
+            this.email = (Map<String, Object>) state.get("email");
+            this.enquiry = (Map<String, Object>) state.get("enquiry");
+            this.gdprConsent = (Map<String, Object>) state.get("consent");
+            this.formValid = (Boolean) state.get("formValid");
+            this.continueButtonVisible = Boolean.TRUE.equals(state.get("buttonVisible"));
+        }
+    }
+
     /**
      * Constructor
      * @param driver WebDriver instance
@@ -33,27 +100,52 @@ public class ContactPage extends BasePage {
      * @return Current page object
      */
     public ContactPage open() {
-        driver.get("https://elteshop.com/index.php?route=information/contact");
+        navigateTo(URL);
         waitForPageLoad();
         // Add a more specific wait for the form itself to be visible after page load
-        wait.until(ExpectedConditions.visibilityOfElementLocated(By.id("contact")));
+        wait.until(ExpectedConditions.visibilityOfElementLocated(contactFormLocator));
         return this;
     }
 
     /**
-     * Fill contact form
+     * Fill contact form (all fields in one script call)
      * @param name Name
      * @param email Email
      * @param enquiry Enquiry text
      * @return Current page object
      */
     public ContactPage fillContactForm(String name, String email, String enquiry) {
-        enterText(nameInputLocator, name);
-        enterText(emailInputLocator, email);
-        enterText(enquiryTextareaLocator, enquiry);
+        Map<By, String> values = new LinkedHashMap<>();
+        values.put(nameInputLocator, name);
+        values.put(emailInputLocator, email);
+        values.put(enquiryTextareaLocator, enquiry);
+        fillFields(values);
+        return this;
+    }
+
+    /**
+     * Reset the contact form in place (no reload) and set the GDPR consent checkbox
+     * Used between fuzzing cases instead of opening the page again.
+     * @param gdprConsent Whether the consent checkbox should be checked
+     * @return Current page object
+     */
+    public ContactPage resetContactForm(boolean gdprConsent) {
+        Object found = ((JavascriptExecutor) driver).executeScript(RESET_FORM_SCRIPT, gdprConsent);
+        if (!Boolean.TRUE.equals(found)) {
+            throw new org.openqa.selenium.NoSuchElementException("Contact form not found, cannot reset it");
+        }
         return this;
     }
 
+    /**
+     * Read field values, HTML validity state and continue button visibility, without submitting
+     * @return Form state
+     */
+    @SuppressWarnings("unchecked")
+    public FormState getFormState() {
+        return new FormState((Map<String, Object>) ((JavascriptExecutor) driver).executeScript(FORM_STATE_SCRIPT));
+    }
+
     /**
      * Handle GDPR consent by clicking the checkbox
      * @return Current page object
@@ -85,13 +177,16 @@ public class ContactPage extends BasePage {
 
     /**
      * Get contact info
+     * Cached for the suite once found; the contact page must be open.
      * @return Contact info text
      */
     public String getContactInfo() {
-        if (isElementPresent(contactInfoLocator)) {
-            return getElementText(contactInfoLocator);
-        }
-        return "";
+        return QueryCache.get(URL, "contactInfo", () -> {
+            if (isElementPresent(contactInfoLocator)) {
+                return getElementText(contactInfoLocator);
+            }
+            return "";
+        }, info -> !info.isEmpty());
     }
 
     /**
@@ -142,4 +237,12 @@ public class ContactPage extends BasePage {
             return false;
         }
     }
+
+    /**
+     * Take screenshot of the contact form
+     * @return Contact form screenshot
+     */
+    public BufferedImage captureContactForm() {
+        return captureElementScreenshot(contactFormLocator);
+    }
 }
\ No newline at end of file
@@ -5,16 +5,23 @@ import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.support.ui.WebDriverWait;
+import java.awt.image.BufferedImage;
+import utils.QueryCache;
+import utils.SearchLatencyProbe;
+import utils.TimedWait;
 
 /**
  * Home page object class
  * Handles interactions with the website home page
  */
 public class HomePage extends BasePage {
+    public static final String URL = "https://elteshop.com/";
+
     // Locators
     private final By searchInputLocator = By.xpath("//input[@placeholder='Keywords']");
     private final By searchButtonLocator = By.xpath("//button[@onclick='moduleSearch();']");
     private final By logoLocator = By.xpath("//div[contains(@class, 'header-navbar-top-center')]//img[@alt='ELTE SHOP ']");
+    private final By headerLogoAreaLocator = By.cssSelector("div.header-navbar-top-center");
     private final By navigationMenuLocator = By.xpath("//div[@id='category-nav']/ul");
     private final By clothesMenuLocator = By.xpath("//li[@id='cat_133']/a");
     private final By cookieAcceptButtonLocator = By.linkText("Elfogadom");
@@ -34,7 +41,7 @@ public class HomePage extends BasePage {
      * @return Current page object
      */
     public HomePage open() {
-        driver.get("https://elteshop.com/");
+        boolean loaded = navigateTo(URL);
         waitForPageLoad(); // Wait for body element to be visible
 
         try {
@@ -46,8 +53,13 @@ public class HomePage extends BasePage {
             throw new org.openqa.selenium.TimeoutException("Failed to load Homepage: Header Logo not found or not visible.", e);
         }
 
+        if (!loaded) {
+            // Session reused in journey mode: the cookie notice was already handled on this page
+            return this;
+        }
+
         try {
-            WebDriverWait cookieWait = new WebDriverWait(driver, 5);
+            WebDriverWait cookieWait = new TimedWait(driver, 5);
             WebElement cookieButton = cookieWait.until(ExpectedConditions.elementToBeClickable(cookieAcceptButtonLocator));
             cookieButton.click();
             System.out.println("Cookie notice accepted.");
@@ -65,7 +77,45 @@ public class HomePage extends BasePage {
      * @return Search results page object
      */
     public ProductListPage searchProduct(String keyword) {
+        enterText(searchInputLocator, keyword);
+        return submitSearch();
+    }
+
+    /**
+     * Search for product without waiting for the results page to be ready
+     * @param keyword Search keyword
+     * @return Future search results page object, resolve it with get()
+     */
+    public PageFuture<ProductListPage> searchProductAsync(String keyword) {
         enterText(searchInputLocator, keyword);
+        clickElement(searchButtonLocator);
+        return new PageFuture<>(driver, ProductListPage::new);
+    }
+
+    /**
+     * Type a keyword into the search box key by key and measure the page's reaction to each key
+     * A key's latency runs from its keydown until the page has rendered everything the key
+     * caused, autocomplete included (see SearchLatencyProbe).
+     * @param keyword Search keyword
+     * @return Latency per key in milliseconds (NaN for keys the page did not settle after in time)
+     */
+    public double[] typeSearchKeywordMeasured(String keyword) {
+        WebElement searchInput = waitAndReturnElement(searchInputLocator);
+        searchInput.clear();
+        SearchLatencyProbe probe = SearchLatencyProbe.install(driver, searchInput);
+        double[] latencies = new double[keyword.length()];
+        for (int i = 0; i < keyword.length(); i++) {
+            searchInput.sendKeys(String.valueOf(keyword.charAt(i)));
+            latencies[i] = probe.awaitKeyLatency();
+        }
+        return latencies;
+    }
+
+    /**
+     * Submit the keyword typed into the search box
+     * @return Search results page object
+     */
+    public ProductListPage submitSearch() {
         clickElement(searchButtonLocator);
         return new ProductListPage(driver);
     }
@@ -99,18 +149,30 @@ public class HomePage extends BasePage {
 
     /**
      * Get navigation menu items count
+     * Cached for the suite (see QueryCache); the home page must be open.
      * @return Menu items count
      */
     public int getNavigationMenuItemsCount() {
-        WebElement navMenu = waitAndReturnElement(navigationMenuLocator);
-        return navMenu.findElements(By.tagName("li")).size();
+        return QueryCache.get(URL, "navigationMenuItemsCount", () -> {
+            WebElement navMenu = waitAndReturnElement(navigationMenuLocator);
+            return navMenu.findElements(By.tagName("li")).size();
+        }, count -> count > 0);
     }
 
     /**
      * Check if logo is displayed
+     * Cached for the suite once the logo was found (a missing logo is checked again every time).
      * @return Whether logo is displayed
      */
     public boolean isLogoDisplayed() {
-        return isElementPresent(logoLocator);
+        return QueryCache.get(URL, "logoDisplayed", () -> isElementPresent(logoLocator), displayed -> displayed);
+    }
+
+    /**
+     * Take screenshot of the header area containing the logo
+     * @return Header screenshot
+     */
+    public BufferedImage captureHeaderLogoArea() {
+        return captureElementScreenshot(headerLogoAreaLocator);
     }
 }
\ No newline at end of file
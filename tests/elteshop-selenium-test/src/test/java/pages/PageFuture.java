@@ -0,0 +1,146 @@
+package pages;
+
+import org.openqa.selenium.WebDriver;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiFunction;
+import utils.DeadlineExceededException;
+
+/**
+ * Page object of a started page transition
+ * The transition (click, navigation) is triggered when the future is created; the page
+ * object, and with it the wait until the page is ready, is only created by get(). Until
+ * then the test can do other work, e.g. drive another tab. get() switches back to the
+ * window the transition was started in. A page that does not become ready is reported as
+ * an ExecutionException, so tests see readiness failures when they resolve the future.
+ * Page futures are not thread-safe, like the driver they use.
+ * @param <T> Page object type
+ */
+public class PageFuture<T extends BasePage> implements Future<T> {
+    private final WebDriver driver;
+    private final String windowHandle;
+    private final BiFunction<WebDriver, Long, T> pageFactory;
+    private T page;
+    private ExecutionException failure;
+    private boolean cancelled;
+
+    /**
+     * Constructor, call it right after triggering the transition in the current window
+     * @param driver WebDriver instance
+     * @param pageFactory Creates the page object from the driver and the readiness timeout in seconds
+     *                    (its constructor waits until the page is ready)
+     */
+    PageFuture(WebDriver driver, BiFunction<WebDriver, Long, T> pageFactory) {
+        this(driver, driver.getWindowHandle(), pageFactory);
+    }
+
+    /**
+     * Constructor, call it right after triggering the transition in the given window
+     * @param driver WebDriver instance
+     * @param windowHandle Window the page is loading in
+     * @param pageFactory Creates the page object from the driver and the readiness timeout in seconds
+     *                    (its constructor waits until the page is ready)
+     */
+    PageFuture(WebDriver driver, String windowHandle, BiFunction<WebDriver, Long, T> pageFactory) {
+        this.driver = driver;
+        this.windowHandle = windowHandle;
+        this.pageFactory = pageFactory;
+    }
+
+    /**
+     * Give up the page, get() then throws CancellationException
+     * The browser keeps loading the page; nothing is undone.
+     * @param mayInterruptIfRunning Ignored, the page is only created on the calling thread
+     * @return Whether the future was cancelled (false if it was already resolved)
+     */
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        if (isDone()) {
+            return false;
+        }
+        cancelled = true;
+        return true;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public boolean isDone() {
+        return cancelled || page != null || failure != null;
+    }
+
+    /**
+     * Wait until the page is ready and return its page object
+     * @return Page object
+     * @throws ExecutionException if the page did not become ready or its window is gone
+     */
+    @Override
+    public T get() throws ExecutionException {
+        resolve();
+        return page;
+    }
+
+    /**
+     * Wait at most the given time (and at most the page's own wait timeout) for the page
+     * A page that is not ready in time can be asked for again.
+     * @param timeout Timeout, rounded up to whole seconds
+     * @param unit Timeout unit
+     * @return Page object
+     * @throws ExecutionException if the page did not become ready or its window is gone
+     * @throws TimeoutException if the page was not ready within the timeout
+     */
+    @Override
+    public T get(long timeout, TimeUnit unit) throws ExecutionException, TimeoutException {
+        long seconds = Math.max(1, (unit.toMillis(timeout) + 999) / 1000);
+        if (isDone() || seconds >= BasePage.waitSeconds()) {
+            // The page's own wait is the shorter limit, its timeout is a readiness failure
+            return get();
+        }
+        try {
+            // Only the readiness wait is shortened, the page keeps the usual timeout for its later waits
+            page = pageFactory.apply(switchToWindow(), seconds);
+            return page;
+        } catch (DeadlineExceededException e) {
+            failure = new ExecutionException("Test deadline passed before the page was ready", e);
+            throw failure;
+        } catch (org.openqa.selenium.TimeoutException e) {
+            TimeoutException notReady = new TimeoutException("Page was not ready within " + seconds + " s: " + e.getMessage());
+            notReady.initCause(e);
+            throw notReady;
+        } catch (RuntimeException e) {
+            failure = new ExecutionException("Page did not become ready", e);
+            throw failure;
+        }
+    }
+
+    private void resolve() throws ExecutionException {
+        if (cancelled) {
+            throw new CancellationException("Page transition was cancelled");
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        if (page != null) {
+            return;
+        }
+        try {
+            page = pageFactory.apply(switchToWindow(), Long.MAX_VALUE);
+        } catch (RuntimeException e) {
+            failure = new ExecutionException("Page did not become ready", e);
+            throw failure;
+        }
+    }
+
+    private WebDriver switchToWindow() {
+        if (!windowHandle.equals(driver.getWindowHandle())) {
+            driver.switchTo().window(windowHandle);
+        }
+        return driver;
+    }
+}
\ No newline at end of file
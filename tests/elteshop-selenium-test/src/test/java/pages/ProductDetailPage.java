@@ -20,10 +20,19 @@ public class ProductDetailPage extends BasePage {
      * @param driver WebDriver instance
      */
     public ProductDetailPage(WebDriver driver) {
+        this(driver, Long.MAX_VALUE);
+    }
+
+    /**
+     * Constructor
+     * @param driver WebDriver instance
+     * @param readyTimeoutSeconds Longest wait for the page to become ready (capped at the usual wait timeout)
+     */
+    ProductDetailPage(WebDriver driver, long readyTimeoutSeconds) {
         super(driver);
         // Use explicit wait for the specific product name element to confirm page loaded.
         try {
-            wait.until(ExpectedConditions.visibilityOfElementLocated(productNameLocator));
+            readyWait(readyTimeoutSeconds).until(ExpectedConditions.visibilityOfElementLocated(productNameLocator));
             System.out.println("Product Detail Page: Product name element is visible, page likely loaded and stable.");
         } catch (org.openqa.selenium.TimeoutException e) {
             System.err.println("Product Detail Page: Timeout waiting for product name element. " + e.getMessage());
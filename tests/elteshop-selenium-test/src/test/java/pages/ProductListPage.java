@@ -1,12 +1,19 @@
 package pages;
 
 import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.ui.Select;
 import org.openqa.selenium.support.ui.ExpectedConditions;
+import java.awt.image.BufferedImage;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -22,18 +29,43 @@ public class ProductListPage extends BasePage {
     private final By sortSelectLocator = By.id("input-sort");
     private final By filterSelectLocator = By.id("input-limit");
     private final By pageHeadingLocator = By.cssSelector("h1.page-head-title");
+    private final By productListContentLocator = By.id("content");
     private final By resultsCountTextLocator = By.xpath("//div[contains(@class, 'sortbar-bottom')]//div[@class='results']");
+    private final By nextPageLocator = By.xpath("//ul[contains(@class, 'pagination')]//a[normalize-space()='>' or @rel='next']");
+
+    // Parts of the list that change with the catalog, hidden in the visual check
+    private static final String DYNAMIC_CONTENT_SELECTOR = "img, [class*='price'], h2.product-card-item a, .results";
+
+    // Compiled once, getProductCount is called by most search tests
+    private static final Pattern RESULTS_COUNT_PATTERN = Pattern.compile("of (\\d+)");
+
+    // Reads name and link of every product card in one round trip
+    private static final String PRODUCT_LINKS_SCRIPT =
+        "var links = [];"
+        + "document.querySelectorAll('h2.product-card-item a').forEach(function (a) {"
+        + "  links.push([a.textContent.trim(), a.href]);"
+        + "});"
+        + "return links;";
 
     /**
      * Constructor
      * @param driver WebDriver instance
      */
     public ProductListPage(WebDriver driver) {
+        this(driver, Long.MAX_VALUE);
+    }
+
+    /**
+     * Constructor
+     * @param driver WebDriver instance
+     * @param readyTimeoutSeconds Longest wait for the page to become ready (capped at the usual wait timeout)
+     */
+    ProductListPage(WebDriver driver, long readyTimeoutSeconds) {
         super(driver);
         // Using ExpectedConditions.or to wait for EITHER the product count element OR the main page heading.
         // This makes the ProductListPage constructor robust for both actual product lists and category overview pages.
         try {
-            wait.until(ExpectedConditions.or(
+            readyWait(readyTimeoutSeconds).until(ExpectedConditions.or(
                 ExpectedConditions.visibilityOfElementLocated(resultsCountTextLocator), // For pages with product counts (e.g., search results)
                 ExpectedConditions.visibilityOfElementLocated(pageHeadingLocator)
             ));
@@ -59,8 +91,7 @@ public class ProductListPage extends BasePage {
         String resultsText = getElementText(resultsCountTextLocator);
         System.out.println("Product List Page - Raw Results Text: " + resultsText);
 
-        Pattern pattern = Pattern.compile("of (\\d+)");
-        Matcher matcher = pattern.matcher(resultsText);
+        Matcher matcher = RESULTS_COUNT_PATTERN.matcher(resultsText);
 
         if (matcher.find()) {
             try {
@@ -108,6 +139,38 @@ public class ProductListPage extends BasePage {
         return productNames;
     }
 
+    /**
+     * Get links and names of all products displayed on the current page with a single script call.
+     * Different products with the same name are all listed; a product linked twice is listed once.
+     * @return Product page URL to product name, in page order
+     */
+    public Map<String, String> getProductLinks() {
+        Map<String, String> links = new LinkedHashMap<>();
+        List<?> rows = (List<?>) ((JavascriptExecutor) driver).executeScript(PRODUCT_LINKS_SCRIPT);
+        for (Object row : rows) {
+            List<?> pair = (List<?>) row;
+            links.putIfAbsent((String) pair.get(1), (String) pair.get(0));
+        }
+        return links;
+    }
+
+    /**
+     * Check whether the list has a next page
+     * @return Whether a next page link is present
+     */
+    public boolean hasNextPage() {
+        return !driver.findElements(nextPageLocator).isEmpty();
+    }
+
+    /**
+     * Go to the next page of the list
+     * @return Product list page object of the next page
+     */
+    public ProductListPage nextPage() {
+        clickElement(nextPageLocator);
+        return new ProductListPage(driver);
+    }
+
     /**
      * Open product at specified index.
      * This method expects product items to be present on the page.
@@ -115,14 +178,99 @@ public class ProductListPage extends BasePage {
      * @return Product detail page object
      */
     public ProductDetailPage openProduct(int index) {
+        clickProduct(index);
+        return new ProductDetailPage(driver);
+    }
+
+    /**
+     * Open product at specified index without waiting for the detail page to be ready
+     * @param index Product index (0-based)
+     * @return Future product detail page object, resolve it with get()
+     */
+    public PageFuture<ProductDetailPage> openProductAsync(int index) {
+        clickProduct(index);
+        return new PageFuture<>(driver, ProductDetailPage::new);
+    }
+
+    /**
+     * Open product at specified index in a new tab without waiting for it
+     * The list stays the current window and can be used while the product page loads;
+     * get() switches to the product's tab. Close the tab when done.
+     * @param index Product index (0-based)
+     * @return Future product detail page object, resolve it with get()
+     */
+    public PageFuture<ProductDetailPage> openProductInNewTabAsync(int index) {
+        String url = findProductLink(index).getAttribute("href");
+        return new PageFuture<>(driver, openInNewTab(url), ProductDetailPage::new);
+    }
+
+    private void clickProduct(int index) {
+        wait.until(ExpectedConditions.elementToBeClickable(findProductLink(index))).click();
+    }
+
+    private WebElement findProductLink(int index) {
         // Re-find product elements to ensure they are not stale
         List<WebElement> products = driver.findElements(productItemsLocator);
-        if (index >= 0 && index < products.size()) {
-            WebElement productLink = products.get(index).findElement(productNameLocator);
-            wait.until(ExpectedConditions.elementToBeClickable(productLink)).click();
-            return new ProductDetailPage(driver);
+        if (index < 0 || index >= products.size()) {
+            throw new IndexOutOfBoundsException("Product index " + index + " out of range. Total products found: " + products.size());
+        }
+        return products.get(index).findElement(productNameLocator);
+    }
+
+    /**
+     * Open products of the current page in browser tabs and extract a value from each.
+     * A batch of tabs is opened at once so the product pages load in parallel; each tab is
+     * then checked in turn (ProductDetailPage waits until it is ready) and closed.
+     * The list stays open in the original tab.
+     * @param maxProducts Maximum number of products to open, from the top of the list
+     * @param tabs Number of tabs loading at the same time
+     * @param extractor Reads the wanted value from a product detail page
+     * @param <T> Extracted value type
+     * @return Extracted values in list order
+     */
+    public <T> List<T> fanOutProducts(int maxProducts, int tabs, Function<ProductDetailPage, T> extractor) {
+        List<String> urls = new ArrayList<>(getProductLinks().keySet());
+        urls = urls.subList(0, Math.min(maxProducts, urls.size()));
+        String listWindow = driver.getWindowHandle();
+        List<T> results = new ArrayList<>();
+        for (int start = 0; start < urls.size(); start += Math.max(1, tabs)) {
+            List<String> openedWindows = new ArrayList<>();
+            try {
+                for (String url : urls.subList(start, Math.min(start + Math.max(1, tabs), urls.size()))) {
+                    openedWindows.add(openInNewTab(url));
+                }
+                for (String window : openedWindows) {
+                    driver.switchTo().window(window);
+                    results.add(extractor.apply(new ProductDetailPage(driver)));
+                }
+            } finally {
+                closeWindows(openedWindows, listWindow);
+            }
+        }
+        return results;
+    }
+
+    private String openInNewTab(String url) {
+        Set<String> before = driver.getWindowHandles();
+        // window.open returns right away, the tab loads while the next ones are opened
+        ((JavascriptExecutor) driver).executeScript("window.open(arguments[0], '_blank');", url);
+        Set<String> opened = new HashSet<>(driver.getWindowHandles());
+        opened.removeAll(before);
+        if (opened.size() != 1) {
+            throw new org.openqa.selenium.NoSuchWindowException("Could not open product tab for " + url);
+        }
+        return opened.iterator().next();
+    }
+
+    private void closeWindows(List<String> windows, String listWindow) {
+        Set<String> open = new HashSet<>(driver.getWindowHandles());
+        for (String window : windows) {
+            if (open.contains(window)) {
+                driver.switchTo().window(window);
+                driver.close();
+            }
         }
-        throw new IndexOutOfBoundsException("Product index " + index + " out of range. Total products found: " + products.size());
+        driver.switchTo().window(listWindow);
     }
 
     /**
@@ -144,4 +292,13 @@ public class ProductListPage extends BasePage {
     public String getPageHeading() {
         return getElementText(pageHeadingLocator);
     }
+
+    /**
+     * Take screenshot of the main content area (heading, sort bar and product cards)
+     * Product images, prices, names and the results count are hidden, they change with the catalog.
+     * @return Product list screenshot
+     */
+    public BufferedImage captureProductList() {
+        return captureElementScreenshot(productListContentLocator, DYNAMIC_CONTENT_SELECTOR);
+    }
 }
\ No newline at end of file
@@ -4,14 +4,19 @@ import org.openqa.selenium.By;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.ui.ExpectedConditions;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import org.openqa.selenium.interactions.Actions;
+import utils.QueryCache;
 
 /**
  * User account page object class
  * Handles interactions with the user account page
  */
 public class UserAccountPage extends BasePage {
+    public static final String URL = "https://elteshop.com/customer/login";
+
     private final By emailInputLocator = By.id("email_login");
     private final By passwordInputLocator = By.id("password_login");
     private final By loginButtonLocator = By.xpath("//button[span[text()='Login']]");
@@ -32,10 +37,20 @@ public class UserAccountPage extends BasePage {
      * @param driver WebDriver instance
      */
     public UserAccountPage(WebDriver driver) {
+        this(driver, false, Long.MAX_VALUE);
+    }
+    
+    /**
+     * Constructor
+     * @param driver WebDriver instance
+     * @param strict Whether a login page that does not load fails instead of only being logged
+     * @param readyTimeoutSeconds Longest wait for the page to become ready (capped at the usual wait timeout)
+     */
+    UserAccountPage(WebDriver driver, boolean strict, long readyTimeoutSeconds) {
         super(driver);
         try {
             // Use a more flexible approach to verify page is loaded
-            wait.until(ExpectedConditions.or(
+            readyWait(readyTimeoutSeconds).until(ExpectedConditions.or(
                 ExpectedConditions.visibilityOfElementLocated(emailInputLocator),
                 ExpectedConditions.titleContains("Login"),
                 ExpectedConditions.titleContains("Account")
@@ -43,16 +58,32 @@ public class UserAccountPage extends BasePage {
             System.out.println("User Account Page: Login page appears to be loaded.");
         } catch (org.openqa.selenium.TimeoutException e) {
             System.err.println("User Account Page: Timeout waiting for login page to load. Current URL: " + driver.getCurrentUrl());
-            System.err.println("User Account Page: Page source excerpt: " + driver.getPageSource().substring(0, Math.min(500, driver.getPageSource().length())));
+            // Fetch the page source once, it is the whole document
+            String pageSource = driver.getPageSource();
+            System.err.println("User Account Page: Page source excerpt: " + pageSource.substring(0, Math.min(500, pageSource.length())));
+            if (strict) {
+                throw new org.openqa.selenium.TimeoutException("User Account Page did not load correctly: Neither login form nor login title found.", e);
+            }
         }
     }
     
+    /**
+     * Start opening the login page without waiting for it to be ready
+     * Unlike the constructor, the returned page fails when the login page does not load.
+     * @param driver WebDriver instance
+     * @return Future login page object, resolve it with get()
+     */
+    public static PageFuture<UserAccountPage> openAsync(WebDriver driver) {
+        navigateTo(driver, URL);
+        return new PageFuture<>(driver, (d, readyTimeoutSeconds) -> new UserAccountPage(d, true, readyTimeoutSeconds));
+    }
+    
     /**
      * Open login page
      * @return Current page object
      */
     public UserAccountPage open() {
-        driver.get("https://elteshop.com/customer/login");
+        navigateTo(URL);
         waitForPageLoad();
         System.out.println("Navigated to login page: " + driver.getCurrentUrl());
         return this;
@@ -67,8 +98,10 @@ public class UserAccountPage extends BasePage {
     public UserAccountPage login(String email, String password) {
         try {
             if (isElementPresent(emailInputLocator)) {
-                enterText(emailInputLocator, email);
-                enterText(passwordInputLocator, password);
+                Map<By, String> credentials = new LinkedHashMap<>();
+                credentials.put(emailInputLocator, email);
+                credentials.put(passwordInputLocator, password);
+                fillFields(credentials);
                 
                 if (isElementPresent(loginButtonLocator)) {
                     clickElement(loginButtonLocator);
@@ -85,6 +118,7 @@ public class UserAccountPage extends BasePage {
                 }
                 
                 waitForPageLoad();
+                QueryCache.invalidatePage(URL);
                 System.out.println("Attempted login with email: " + email);
             } else {
                 System.out.println("Email or password input not found");
@@ -128,6 +162,16 @@ public class UserAccountPage extends BasePage {
     public String getPageTitle() {
         return driver.getTitle();
     }
+
+    /**
+     * Get title of the login page
+     * Cached for the suite until a login or logout (the login URL shows another page while logged in);
+     * the login page must be open.
+     * @return Login page title
+     */
+    public String getLoginPageTitle() {
+        return QueryCache.get(URL, "title", driver::getTitle, title -> !title.isEmpty());
+    }
     /**
     * Check if login error message is displayed
     * @return Whether login error message is displayed
@@ -176,6 +220,7 @@ public class UserAccountPage extends BasePage {
     public UserAccountPage clickLogOffLink() {
         clickElement(logOffLinkLocator);
         waitForPageLoad(); // Wait for navigation to the login page
+        QueryCache.invalidatePage(URL);
         System.out.println("Clicked Log Off link.");
         return this;
     }
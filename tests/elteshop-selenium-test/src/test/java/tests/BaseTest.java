@@ -1,19 +1,61 @@
 package tests;
 
 import org.junit.After;
+import org.junit.AfterClass;
 import org.junit.Before;
+import org.junit.Rule;
+import org.junit.rules.RuleChain;
+import org.junit.runner.RunWith;
 import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
 import org.openqa.selenium.chrome.ChromeOptions;
 import org.openqa.selenium.remote.RemoteWebDriver;
-import java.net.URL;
 import java.net.MalformedURLException;
+import utils.BrowserCacheMode;
+import utils.BrowserSlotScheduler;
+import utils.BudgetRule;
+import utils.InstrumentedDriver;
+import utils.JfrProfiler;
+import utils.JourneyRule;
+import utils.JourneyRunner;
+import utils.JourneyState;
+import utils.NetworkProfile;
+import utils.PerformanceRecorder;
+import utils.SessionRegistry;
+import utils.TestContext;
+import utils.TestDeadline;
 
 /**
  * Base test class
  * Provides common setup and teardown methods for all test classes
+ * In journey mode (-Delteshop.journey=true) the tests of a class share one session,
+ * see utils.Journey
+ * Each test has a time budget (utils.TestDeadline), override it with @Deadline
  */
+@RunWith(JourneyRunner.class)
 public class BaseTest {
     protected WebDriver driver;
+    private BrowserSlotScheduler.Slot browserSlot;
+    
+    // Session shared by the tests of one class in journey mode
+    private static WebDriver sharedDriver;
+    private static BrowserSlotScheduler.Slot sharedBrowserSlot;
+    
+    // Time budget of the test, shared by setup, the test and teardown
+    private final TestDeadline testDeadline = new TestDeadline(() -> driver);
+    
+    // PerformanceRecorder records test, step and page load timings to the performance history
+    // and holds the TestContext the deadline lives in, so it comes first.
+    // JfrProfiler profiles the test JVM per test when -Delteshop.jfr=true
+    // BudgetRule checks WebDriver commands, bytes and wall time against perf-budgets.properties
+    // JourneyRule keeps or resets the shared session's navigation state after each test in journey mode
+    @Rule
+    public final RuleChain testRules = RuleChain
+        .outerRule(new PerformanceRecorder())
+        .around(new JfrProfiler())
+        .around(new BudgetRule())
+        .around(testDeadline)
+        .around(new JourneyRule(() -> driver));
     
     /**
      * Set up WebDriver before each test method
@@ -21,21 +63,99 @@ public class BaseTest {
      */
     @Before
     public void setup() throws MalformedURLException {
+        if (JourneyState.isEnabled() && sharedDriver != null) {
+            this.driver = sharedDriver;
+            return;
+        }
+        
         ChromeOptions options = new ChromeOptions();
         options.addArguments("--no-sandbox"); // Disables sandbox mode, needed for Docker often
         options.addArguments("--disable-dev-shm-usage"); // Overcomes limited /dev/shm in some Docker setups
         
-        this.driver = new RemoteWebDriver(new URL("http://selenium:4444/wd/hub"), options);
+        // The first call deletes sessions left behind by killed runs, before they take up slots
+        SessionRegistry sessionRegistry = SessionRegistry.getInstance();
+        
+        // Wait for a free Grid slot first, so that session creation does not time out on the Grid
+        this.browserSlot = BrowserSlotScheduler.getInstance().acquire();
+        
+        // Browser cache mode selected with -Delteshop.browserCache (default: new empty profile)
+        BrowserCacheMode cacheMode = BrowserCacheMode.current();
+        cacheMode.configure(options);
+        
+        long sessionStart = System.nanoTime();
+        RemoteWebDriver remoteDriver = new RemoteWebDriver(NetworkProfile.commandExecutor(SessionRegistry.gridUrl()), options);
+        TestContext.recordStep("BaseTest.createSession", System.nanoTime() - sessionStart);
+        
+        // Instrumented driver times every command for the performance history.
+        // Assigned right away, so close() quits the session even if the rest of the setup fails
+        this.driver = InstrumentedDriver.wrap(remoteDriver);
+        sessionRegistry.register(remoteDriver);
+        
+        // Warm mode fills the session's cache, before the network is throttled
+        cacheMode.warmUp(remoteDriver);
+        
+        // Emulated network conditions selected with -Delteshop.network (none by default)
+        NetworkProfile.current().apply(remoteDriver);
         this.driver.manage().window().maximize();
+        
+        if (JourneyState.isEnabled()) {
+            // The class owns the session's slot from now on, released once by whoever ends the session
+            sharedDriver = this.driver;
+            sharedBrowserSlot = this.browserSlot;
+            this.browserSlot = null;
+        }
     }
     
     /**
-     * Close WebDriver after each test method
+     * Close WebDriver after each test method and give its browser slot back
+     * (also runs when setup failed part way)
      */
     @After
     public void close() {
-        if (this.driver != null) {
-            this.driver.quit();
+        boolean shared = this.driver != null && this.driver == sharedDriver;
+        if (shared && !testDeadline.wasAborted()) {
+            // Shared session stays open for the next test of the class
+            return;
+        }
+        try {
+            if (this.driver != null) {
+                SessionRegistry.getInstance().quit(this.driver);
+            }
+        } catch (WebDriverException e) {
+            // The deadline watchdog already quit the session
+            if (!testDeadline.wasAborted()) {
+                throw e;
+            }
+        } finally {
+            if (shared) {
+                // Next test of the class starts a new session
+                sharedDriver = null;
+                sharedBrowserSlot.release();
+                sharedBrowserSlot = null;
+                this.browserSlot = null;
+            }
+            if (this.browserSlot != null) {
+                this.browserSlot.release();
+                this.browserSlot = null;
+            }
+        }
+    }
+    
+    /**
+     * Close the session shared by the tests of the class in journey mode
+     */
+    @AfterClass
+    public static void closeSharedSession() {
+        try {
+            if (sharedDriver != null) {
+                SessionRegistry.getInstance().quit(sharedDriver);
+            }
+        } finally {
+            sharedDriver = null;
+            if (sharedBrowserSlot != null) {
+                sharedBrowserSlot.release();
+                sharedBrowserSlot = null;
+            }
         }
     }
 }
\ No newline at end of file
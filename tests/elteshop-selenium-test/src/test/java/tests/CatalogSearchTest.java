@@ -0,0 +1,87 @@
+package tests;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import pages.HomePage;
+import pages.ProductListPage;
+import utils.CatalogCrawler;
+import utils.CatalogIndex;
+import utils.SearchKeywords;
+import utils.TestConfig;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Catalog search test class (opt-in with -Delteshop.catalog=true)
+ * Checks the shop's search results against the local catalog index (utils.CatalogIndex):
+ * the result count must be at least the number of indexed products whose name contains all
+ * words of the keyword, and every one of those products must be among the results.
+ * Keywords come from search-keywords.txt (see utils.SearchKeywords).
+ */
+@RunWith(Parameterized.class)
+public class CatalogSearchTest extends BaseTest {
+
+    @Parameterized.Parameter
+    public String keyword;
+
+    /**
+     * Search keywords
+     * @return One parameter array per keyword
+     * @throws IOException if the keyword file cannot be read
+     */
+    @Parameterized.Parameters(name = "{0}")
+    public static Collection<Object[]> keywords() throws IOException {
+        List<Object[]> parameters = new ArrayList<>();
+        for (String keyword : SearchKeywords.load()) {
+            parameters.add(new Object[] {keyword});
+        }
+        return parameters;
+    }
+
+    /**
+     * Skip the catalog checks unless they were asked for, before any session is created
+     */
+    @BeforeClass
+    public static void checkEnabled() {
+        Assume.assumeTrue("Catalog search test is off, enable with -Delteshop.catalog=true", TestConfig.getBoolean("catalog", false));
+    }
+
+    /**
+     * Test that the search finds every product whose name contains the keyword
+     */
+    @Test
+    public void testSearchMatchesCatalogIndex() {
+        CatalogIndex index = CatalogCrawler.getIndex(driver);
+        int expectedCount = index.count(keyword);
+        // Product URL to name, products are identified by URL the way the crawler indexed them
+        Map<String, String> missing = new LinkedHashMap<>(index.matchingProducts(keyword));
+
+        // The shop may also match descriptions, so the results can hold more than the index expects
+        ProductListPage productListPage = new HomePage(driver).open().searchProduct(keyword);
+        int resultCount = productListPage.getProductCount();
+        Assert.assertTrue("Search for '" + keyword + "' should report at least the " + expectedCount
+            + " products named like it, reported " + resultCount, resultCount >= expectedCount);
+
+        int maxPages = TestConfig.getInt("catalog.maxPages", 50);
+        for (int page = 1; ; page++) {
+            for (String url : productListPage.getProductLinks().keySet()) {
+                missing.remove(CatalogIndex.productUrl(url));
+            }
+            if (missing.isEmpty() || page >= maxPages || !productListPage.hasNextPage()) {
+                break;
+            }
+            productListPage = productListPage.nextPage();
+        }
+
+        Assert.assertTrue("Search for '" + keyword + "' should find the products named like it, missing " + missing.values(),
+            missing.isEmpty());
+    }
+}
\ No newline at end of file
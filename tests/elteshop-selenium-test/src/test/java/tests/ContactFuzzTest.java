@@ -0,0 +1,37 @@
+package tests;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pages.ContactPage;
+import utils.ContactFormFuzzer;
+import utils.Deadline;
+import utils.Journey;
+import utils.TestConfig;
+
+/**
+ * Contact form fuzzing test class
+ * Fills the contact form with generated inputs (long and multi-line enquiries, Unicode text,
+ * edge-case e-mail addresses, consent on and off) and checks the fields' HTML validity state
+ * and the continue button, without submitting the form.
+ * Set the number of cases with -Delteshop.fuzz.cases (default 2000). The seed is fixed
+ * (-Delteshop.fuzz.seed, default 1), so every run checks the same cases.
+ */
+public class ContactFuzzTest extends BaseTest {
+    private static final long DEFAULT_SEED = 1;
+
+    /**
+     * Test that the contact form validates generated inputs and keeps its continue button
+     */
+    @Test
+    @Journey(startsAt = ContactPage.URL)
+    @Deadline(seconds = 1800)
+    public void testContactFormFuzzing() {
+        ContactPage contactPage = new ContactPage(driver).open();
+
+        long seed = Long.parseLong(TestConfig.getString("fuzz.seed", String.valueOf(DEFAULT_SEED)));
+        ContactFormFuzzer.Report report = new ContactFormFuzzer(seed).run(contactPage, TestConfig.getInt("fuzz.cases", 2000));
+        System.out.println(report);
+
+        Assert.assertEquals(report.toString(), 0, report.getFailedCases());
+    }
+}
\ No newline at end of file
@@ -3,6 +3,7 @@ package tests;
 import org.junit.Test;
 import org.junit.Assert;
 import pages.ContactPage;
+import utils.Journey;
 
 /**
  * Contact page test class
@@ -14,6 +15,7 @@ public class ContactTest extends BaseTest {
      * Test contact form filling (textarea)
      */
     @Test
+    @Journey(startsAt = ContactPage.URL)
     public void testContactForm() {
         // Open contact page
         ContactPage contactPage = new ContactPage(driver).open();
@@ -53,6 +55,7 @@ public class ContactTest extends BaseTest {
      * Test getting contact information
      */
     @Test
+    @Journey(startsAt = ContactPage.URL, readOnly = true)
     public void testContactInfo() {
         // Open contact page
         ContactPage contactPage = new ContactPage(driver).open();
@@ -3,8 +3,12 @@ package tests;
 import org.junit.Test;
 import org.junit.Assert;
 import pages.HomePage;
+import pages.PageFuture;
 import pages.ProductListPage;
 import pages.ProductDetailPage;
+import utils.Journey;
+import utils.TestConfig;
+import java.util.List;
 
 /**
  * Home page and product Browse test class
@@ -16,6 +20,7 @@ public class HomePageTest extends BaseTest {
      * Test home page title and basic elements
      */
     @Test
+    @Journey(startsAt = HomePage.URL, readOnly = true)
     public void testHomePageTitle() {
         HomePage homePage = new HomePage(driver).open();
 
@@ -31,6 +36,7 @@ public class HomePageTest extends BaseTest {
      * Test product search functionality
      */
     @Test
+    @Journey(startsAt = HomePage.URL)
     public void testProductSearch() {
         HomePage homePage = new HomePage(driver).open();
 
@@ -55,6 +61,7 @@ public class HomePageTest extends BaseTest {
      * Test viewing product details after searching for a specific product (e.g., "gloves").
      */
     @Test
+    @Journey(startsAt = HomePage.URL)
     public void testViewProductDetails() {
         HomePage homePage = new HomePage(driver).open();
 
@@ -76,4 +83,72 @@ public class HomePageTest extends BaseTest {
             Assert.fail("No products found for 'gloves' to test product details.");
         }
     }
+
+    /**
+     * Test the asynchronous page transitions: the product opens in a new tab and, while it is
+     * loading, the result list is checked in the original tab; the product page is only waited for afterwards.
+     * @throws Exception if a page did not become ready
+     */
+    @Test
+    @Journey(startsAt = HomePage.URL)
+    public void testViewProductDetailsAsync() throws Exception {
+        HomePage homePage = new HomePage(driver).open();
+        ProductListPage productListPage = homePage.searchProductAsync("gloves").get();
+
+        // Pick the first product named after the keyword
+        List<String> productNames = productListPage.getProductNames();
+        int index = -1;
+        for (int i = 0; i < productNames.size() && index < 0; i++) {
+            if (productNames.get(i).toLowerCase().contains("gloves")) {
+                index = i;
+            }
+        }
+        Assert.assertTrue("Search results should contain a product named after the keyword", index >= 0);
+
+        String listWindow = driver.getWindowHandle();
+        PageFuture<ProductDetailPage> productDetails = productListPage.openProductInNewTabAsync(index);
+        try {
+            // Work on the result list while the product page loads in its tab
+            Assert.assertFalse("Product page should not be resolved before get()", productDetails.isDone());
+            Assert.assertEquals("Result list should stay open in the original tab", listWindow, driver.getWindowHandle());
+            Assert.assertTrue("Result count should cover the listed products",
+                productListPage.getProductCount() >= productNames.size());
+            Assert.assertEquals("Result list should be unchanged while the product loads",
+                productNames, productListPage.getProductNames());
+
+            String productName = productDetails.get().getProductName();
+            Assert.assertTrue("Detail page should show a product named after the keyword", productName.toLowerCase().contains("gloves"));
+            Assert.assertTrue("Future should be resolved", productDetails.isDone());
+        } finally {
+            if (!listWindow.equals(driver.getWindowHandle())) {
+                driver.close();
+            }
+            driver.switchTo().window(listWindow);
+        }
+    }
+
+    /**
+     * Test that every product found for "gloves" opens a detail page with a name.
+     * Product pages are loaded in parallel tabs (-Delteshop.fanout.tabs, default 4).
+     */
+    @Test
+    @Journey(startsAt = HomePage.URL)
+    public void testSearchResultDetails() {
+        HomePage homePage = new HomePage(driver).open();
+        ProductListPage productListPage = homePage.searchProduct("gloves");
+
+        int listedProducts = productListPage.getProductLinks().size();
+        Assert.assertTrue("Search results should contain products", listedProducts > 0);
+
+        int maxProducts = TestConfig.getInt("fanout.maxProducts", 12);
+        List<String> productNames = productListPage.fanOutProducts(maxProducts,
+            TestConfig.getInt("fanout.tabs", 4), ProductDetailPage::getProductName);
+
+        Assert.assertEquals("Every opened product should be checked", Math.min(maxProducts, listedProducts), productNames.size());
+        for (String productName : productNames) {
+            Assert.assertFalse("Product name should not be empty", productName.isEmpty());
+        }
+        // The results list is still open in the original tab
+        Assert.assertEquals("Results list should be kept", listedProducts, productListPage.getProductLinks().size());
+    }
 }
\ No newline at end of file
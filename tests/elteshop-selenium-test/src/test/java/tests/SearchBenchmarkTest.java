@@ -0,0 +1,113 @@
+package tests;
+
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import pages.HomePage;
+import utils.Deadline;
+import utils.Journey;
+import utils.SearchKeywords;
+import utils.Stats;
+import utils.TestConfig;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Search latency benchmark (opt-in with -Delteshop.bench=true)
+ * Types each keyword of the corpus into the header search box key by key, measuring the
+ * latency of every keystroke, then measures the time from submitting the search until the
+ * ProductListPage is ready. Percentiles per keyword length are printed and written to
+ * build/reports/bench/search-latency.txt.
+ *
+ * Settings (-Delteshop.bench.*):
+ * - bench.keywords=20   keywords taken from the corpus (utils.SearchKeywords)
+ * - bench.repeats=3     rounds over the keywords
+ * - bench.warmup=1      keywords at the start that are not counted
+ */
+public class SearchBenchmarkTest extends BaseTest {
+
+    /**
+     * Skip the benchmark unless it was asked for, before any session is created
+     */
+    @BeforeClass
+    public static void checkEnabled() {
+        Assume.assumeTrue("Search benchmark is off, enable with -Delteshop.bench=true", TestConfig.getBoolean("bench", false));
+    }
+
+    /**
+     * Measure keystroke and submit latency of the header search over the keyword corpus
+     * @throws IOException if the corpus cannot be read or the report cannot be written
+     */
+    @Test
+    @Journey(startsAt = HomePage.URL)
+    @Deadline(seconds = 3600)
+    public void benchmarkSearchLatency() throws IOException {
+        List<String> corpus = SearchKeywords.load();
+        corpus = corpus.subList(0, Math.min(corpus.size(), TestConfig.getInt("bench.keywords", 20)));
+        int repeats = TestConfig.getInt("bench.repeats", 3);
+        int warmup = TestConfig.getInt("bench.warmup", 1);
+
+        // Keyword length -> samples in milliseconds
+        Map<Integer, List<Double>> keyLatencies = new TreeMap<>();
+        Map<Integer, List<Double>> submitLatencies = new TreeMap<>();
+        int unsettledKeys = 0;
+        int run = 0;
+        for (int round = 0; round < repeats; round++) {
+            for (String keyword : corpus) {
+                HomePage homePage = new HomePage(driver).open();
+                double[] latencies = homePage.typeSearchKeywordMeasured(keyword);
+                long submitStart = System.nanoTime();
+                homePage.submitSearch();
+                double submitMillis = (System.nanoTime() - submitStart) / 1e6;
+                if (run++ < warmup) {
+                    continue;
+                }
+                List<Double> keySamples = keyLatencies.computeIfAbsent(keyword.length(), length -> new ArrayList<>());
+                for (double latency : latencies) {
+                    if (Double.isNaN(latency)) {
+                        unsettledKeys++;
+                    } else {
+                        keySamples.add(latency);
+                    }
+                }
+                submitLatencies.computeIfAbsent(keyword.length(), length -> new ArrayList<>()).add(submitMillis);
+            }
+        }
+
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format("Search latency over %d keyword(s) x %d round(s), %d warm-up search(es) not counted, "
+            + "%d key(s) did not settle", corpus.size(), repeats, warmup, unsettledKeys));
+        lines.add("Milliseconds per keyword length (keys = measured keystrokes):");
+        lines.add(String.format("%6s %8s | %13s %6s %6s %6s | %10s %6s %6s", "length", "keys",
+            "key p50", "p90", "p99", "max", "submit p50", "p90", "max"));
+        for (Map.Entry<Integer, List<Double>> entry : submitLatencies.entrySet()) {
+            double[] keys = toArray(keyLatencies.get(entry.getKey()));
+            double[] submits = toArray(entry.getValue());
+            lines.add(String.format("%6d %8d | %13.0f %6.0f %6.0f %6.0f | %10.0f %6.0f %6.0f", entry.getKey(), keys.length,
+                Stats.percentile(keys, 50), Stats.percentile(keys, 90), Stats.percentile(keys, 99), Stats.percentile(keys, 100),
+                Stats.percentile(submits, 50), Stats.percentile(submits, 90), Stats.percentile(submits, 100)));
+        }
+
+        File reportFile = new File(TestConfig.getString("bench.reportDir", "build/reports/bench"), "search-latency.txt");
+        reportFile.getParentFile().mkdirs();
+        try (PrintWriter writer = new PrintWriter(reportFile)) {
+            for (String line : lines) {
+                System.out.println(line);
+                writer.println(line);
+            }
+        }
+    }
+
+    private static double[] toArray(List<Double> samples) {
+        double[] values = new double[samples.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = samples.get(i);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,48 @@
+package tests;
+
+import org.junit.Test;
+import pages.ContactPage;
+import pages.HomePage;
+import pages.ProductListPage;
+import utils.Journey;
+import utils.VisualBaseline;
+
+/**
+ * Visual regression test class
+ * Compares screenshots of key page areas with the stored baselines
+ */
+public class VisualRegressionTest extends BaseTest {
+
+    /**
+     * Test home page header and logo appearance
+     */
+    @Test
+    @Journey(startsAt = HomePage.URL, readOnly = true)
+    public void testHomePageHeaderLogo() {
+        HomePage homePage = new HomePage(driver).open();
+
+        VisualBaseline.assertMatches("home-header-logo", homePage.captureHeaderLogoArea());
+    }
+
+    /**
+     * Test product list appearance for the "gloves" search results
+     */
+    @Test
+    @Journey(startsAt = HomePage.URL)
+    public void testProductListAppearance() {
+        ProductListPage productListPage = new HomePage(driver).open().searchProduct("gloves");
+
+        VisualBaseline.assertMatches("product-list-gloves", productListPage.captureProductList());
+    }
+
+    /**
+     * Test contact form appearance
+     */
+    @Test
+    @Journey(startsAt = ContactPage.URL, readOnly = true)
+    public void testContactFormAppearance() {
+        ContactPage contactPage = new ContactPage(driver).open();
+
+        VisualBaseline.assertMatches("contact-form", contactPage.captureContactForm());
+    }
+}
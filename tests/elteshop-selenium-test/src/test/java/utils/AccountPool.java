@@ -0,0 +1,249 @@
+package utils;
+
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pool of shop accounts for tests that log in
+ * A test leases an account for its whole run, so concurrent login tests never share an
+ * account and cannot log each other out. Accounts are handed out in request order; when
+ * all are leased, tests wait until one is returned or the timeout passes. Test JVMs running
+ * in parallel (forks) coordinate through a lock file per account (named by the SHA-1 of the
+ * e-mail); an account whose lock file cannot be used is not leased. Returning a lease deletes
+ * the browser's cookies, so the next test using the session starts logged out.
+ *
+ * Settings (-Delteshop.*):
+ * - accounts=email:password,...   accounts of the pool (default: the suite's test account)
+ * - accounts.file=path            file with one email:password per line, instead of accounts
+ * - accounts.leaseTimeout=300     seconds to wait for a free account before failing
+ */
+public final class AccountPool {
+    private static final String DEFAULT_ACCOUNTS = "zhaoboning666@gmail.com:zbn20021017";
+    // Pause before trying again when another test JVM holds the account
+    private static final long LOCKED_RETRY_MILLIS = 200;
+    private static final AccountPool INSTANCE = new AccountPool(loadAccounts());
+
+    private final BlockingQueue<Account> freeAccounts;
+    private final int size;
+    private final File lockDir = new File(TestConfig.getString("accounts.lockDir", "build/account-locks"));
+
+    /**
+     * Shop account credentials
+     */
+    public static final class Account {
+        private final String email;
+        private final String password;
+
+        Account(String email, String password) {
+            this.email = email;
+            this.password = password;
+        }
+
+        /**
+         * @return Login e-mail
+         */
+        public String getEmail() {
+            return email;
+        }
+
+        /**
+         * @return Login password
+         */
+        public String getPassword() {
+            return password;
+        }
+    }
+
+    /**
+     * Leased account, close it when the test is done (try-with-resources)
+     */
+    public final class Lease implements AutoCloseable {
+        private final Account account;
+        // Holds the account's lock file
+        private final FileChannel lockChannel;
+        private final WebDriver driver;
+        private final AtomicBoolean returned = new AtomicBoolean();
+
+        private Lease(Account account, FileChannel lockChannel, WebDriver driver) {
+            this.account = account;
+            this.lockChannel = lockChannel;
+            this.driver = driver;
+        }
+
+        /**
+         * @return Login e-mail of the leased account
+         */
+        public String getEmail() {
+            return account.getEmail();
+        }
+
+        /**
+         * @return Login password of the leased account
+         */
+        public String getPassword() {
+            return account.getPassword();
+        }
+
+        /**
+         * Log the browser out by deleting its cookies and return the account (calling it again has no effect)
+         */
+        @Override
+        public void close() {
+            if (!returned.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                driver.manage().deleteAllCookies();
+            } catch (WebDriverException e) {
+                System.err.println("Account pool: could not clear cookies for " + account.getEmail() + ": " + e.getMessage());
+            } finally {
+                closeQuietly(lockChannel);
+                freeAccounts.add(account);
+            }
+        }
+    }
+
+    AccountPool(List<Account> accounts) {
+        this.size = accounts.size();
+        // Fair queue: waiting tests get accounts in arrival order
+        this.freeAccounts = new ArrayBlockingQueue<>(Math.max(1, accounts.size()), true, accounts);
+    }
+
+    /**
+     * @return Pool shared by the tests of this JVM
+     */
+    public static AccountPool getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Lease an account for the calling test
+     * Waiting time is recorded as step "AccountPool.waitForAccount" and does not count against the test's deadline.
+     * @param driver Driver of the test's session, its cookies are deleted when the lease is closed
+     * @return Lease, close it when the test is done
+     * @throws TimeoutException if no account becomes free within the timeout
+     * @throws IllegalStateException if an account's lock file cannot be used
+     */
+    public Lease lease(WebDriver driver) {
+        long timeoutSeconds = TestConfig.getInt("accounts.leaseTimeout", 300);
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+        try {
+            while (true) {
+                Account account = freeAccounts.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (account == null) {
+                    throw new TimeoutException("No test account became free within " + timeoutSeconds + " seconds ("
+                        + size + " account(s) in the pool, add more with -Delteshop.accounts)");
+                }
+                Lease lease = tryLease(account, driver);
+                if (lease != null) {
+                    long waited = System.nanoTime() - start;
+                    TestContext.recordStep("AccountPool.waitForAccount", waited);
+                    TestContext.extendDeadline(waited);
+                    return lease;
+                }
+                // Leased by a test in another JVM, let the next waiting test try another account
+                freeAccounts.add(account);
+                Thread.sleep(LOCKED_RETRY_MILLIS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TimeoutException("Interrupted while waiting for a test account", e);
+        }
+    }
+
+    /**
+     * Lease the account if no other test JVM holds its lock file
+     * @return Lease, or null if another JVM holds the account
+     * @throws IllegalStateException if the lock file cannot be used
+     */
+    private Lease tryLease(Account account, WebDriver driver) {
+        lockDir.mkdirs();
+        File lockFile = new File(lockDir, sha1Hex(account.getEmail().toLowerCase(Locale.ROOT)) + ".lock");
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(lockFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            if (channel.tryLock() == null) {
+                channel.close();
+                return null;
+            }
+            return new Lease(account, channel, driver);
+        } catch (IOException e) {
+            if (channel != null) {
+                closeQuietly(channel);
+            }
+            // Put the account back, leasing it unlocked could share it with another JVM
+            freeAccounts.add(account);
+            throw new IllegalStateException("Account pool: could not lock " + lockFile.getPath(), e);
+        }
+    }
+
+    private static String sha1Hex(String text) {
+        try {
+            StringBuilder hex = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("SHA-1").digest(text.getBytes(StandardCharsets.UTF_8))) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform has SHA-1
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Nothing left to release
+        }
+    }
+
+    private static List<Account> loadAccounts() {
+        List<String> entries = new ArrayList<>();
+        String file = TestConfig.getString("accounts.file", "");
+        if (!file.isEmpty()) {
+            try {
+                entries.addAll(Files.readAllLines(new File(file).toPath(), StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not read account file " + file, e);
+            }
+        } else {
+            for (String entry : TestConfig.getString("accounts", DEFAULT_ACCOUNTS).split(",")) {
+                entries.add(entry);
+            }
+        }
+        List<Account> accounts = new ArrayList<>();
+        for (String entry : entries) {
+            entry = entry.trim();
+            if (entry.isEmpty() || entry.startsWith("#")) {
+                continue;
+            }
+            int separator = entry.indexOf(':');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Account '" + entry + "' is not in email:password form");
+            }
+            accounts.add(new Account(entry.substring(0, separator), entry.substring(separator + 1)));
+        }
+        if (accounts.isEmpty()) {
+            throw new IllegalArgumentException("No test accounts configured");
+        }
+        return accounts;
+    }
+}
\ No newline at end of file
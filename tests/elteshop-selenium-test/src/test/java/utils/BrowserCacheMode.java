@@ -0,0 +1,106 @@
+package utils;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.chrome.ChromeOptions;
+import pages.ContactPage;
+import pages.HomePage;
+import pages.UserAccountPage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * HTTP cache state new browser sessions start with
+ * Selected with -Delteshop.browserCache=<name>:
+ * - default: every session has a new, empty profile (Chrome's normal behavior)
+ * - warm: every session fills the cache of its new profile by visiting the key pages before
+ *   the test starts (the shop's CSS, JS, fonts and images are then cached)
+ * - cold: the disk cache is limited to nothing, so every page is downloaded in full
+ *
+ * Each warm session starts from the same cache, filled by the same visits, so its results
+ * do not depend on the tests that ran before it in the slot. The cache lives in the profile
+ * ChromeDriver creates for the session, which is deleted when the session quits. Extra pages
+ * to warm up can be given with -Delteshop.browserCache.warmUrls=url1,url2.
+ */
+public enum BrowserCacheMode {
+    DEFAULT("default"),
+    WARM("warm"),
+    COLD("cold");
+
+    private final String modeName;
+
+    BrowserCacheMode(String modeName) {
+        this.modeName = modeName;
+    }
+
+    /**
+     * @return Mode selected with -Delteshop.browserCache (default default)
+     */
+    public static BrowserCacheMode current() {
+        String name = TestConfig.getString("browserCache", DEFAULT.modeName);
+        for (BrowserCacheMode mode : values()) {
+            if (mode.modeName.equalsIgnoreCase(name)) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException("Unknown browser cache mode '" + name + "'");
+    }
+
+    /**
+     * @return Mode name as used on the command line
+     */
+    public String getModeName() {
+        return modeName;
+    }
+
+    /**
+     * Add the browser arguments of the mode
+     * @param options Options of the new session
+     */
+    public void configure(ChromeOptions options) {
+        if (this == COLD) {
+            options.addArguments("--disk-cache-size=1");
+            options.addArguments("--media-cache-size=1");
+        }
+    }
+
+    /**
+     * Fill the session's cache by visiting the key pages
+     * Does nothing in the default and cold modes. The time is recorded as step
+     * "BrowserCache.warmUp" and does not count against the test's deadline.
+     * @param driver New session (not instrumented, so the visits stay out of the measurements)
+     */
+    public void warmUp(WebDriver driver) {
+        if (this != WARM) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            for (String url : warmUrls()) {
+                driver.get(url);
+            }
+            // Only the cache is kept, not the shop session of the warm-up visits
+            driver.manage().deleteAllCookies();
+            driver.get("about:blank");
+            System.out.println("Browser cache: warmed in " + (System.nanoTime() - start) / 1000000 + " ms");
+        } catch (WebDriverException e) {
+            // The test runs with what was cached so far
+            System.err.println("Browser cache: could not warm the cache: " + e.getMessage());
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            TestContext.recordStep("BrowserCache.warmUp", elapsed);
+            TestContext.extendDeadline(elapsed);
+        }
+    }
+
+    private static List<String> warmUrls() {
+        List<String> urls = new ArrayList<>(Arrays.asList(HomePage.URL, UserAccountPage.URL, ContactPage.URL));
+        for (String url : TestConfig.getString("browserCache.warmUrls", "").split(",")) {
+            if (!url.trim().isEmpty()) {
+                urls.add(url.trim());
+            }
+        }
+        return urls;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,238 @@
+package utils;
+
+import org.openqa.selenium.SessionNotCreatedException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Client-side scheduler for the Grid's browser slots
+ * The selenium container only runs a fixed number of browser sessions. Tests take a
+ * slot before creating a RemoteWebDriver and give it back after quitting, so session
+ * requests queue here (first come, first served) instead of timing out on the Grid.
+ * Test JVMs running in parallel (forks) share the Grid's slots through a lock file per
+ * slot: a slot is only handed out while this JVM holds its lock. A worker keeps its slot
+ * number while another JVM holds the lock and blocks until the lock is released, so
+ * forks beyond the Grid's slots queue for them instead of polling.
+ *
+ * Settings (-Delteshop.*):
+ * - grid.slots=1                      browser slots of the Grid (shared by all test JVMs)
+ * - grid.slotTimeout=300              seconds to wait for a free slot before failing
+ * - grid.slotLockDir=build/slot-locks directory of the slot lock files
+ */
+public final class BrowserSlotScheduler {
+    // Ends lock waits at their deadline by closing the waiting channel
+    private static final ScheduledExecutorService LOCK_TIMEOUTS = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "browser-slot-timeouts");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final BrowserSlotScheduler INSTANCE = new BrowserSlotScheduler(
+        Math.max(1, TestConfig.getInt("grid.slots", 1)));
+
+    private final int capacity;
+    private final BlockingQueue<Integer> freeSlots;
+    private final File lockDir = new File(TestConfig.getString("grid.slotLockDir", "build/slot-locks"));
+    private final long createdNanos = System.nanoTime();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicInteger maxWaiting = new AtomicInteger();
+    private final AtomicLong acquisitions = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong lockWaits = new AtomicLong();
+    private final AtomicLong lockWaitNanos = new AtomicLong();
+    private final AtomicLong busyNanos = new AtomicLong();
+
+    /**
+     * Leased browser slot
+     */
+    public final class Slot {
+        private final int index;
+        // Holds the slot's lock file
+        private final FileChannel lockChannel;
+        private final long acquiredNanos = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Slot(int index, FileChannel lockChannel) {
+            this.index = index;
+            this.lockChannel = lockChannel;
+        }
+
+        /**
+         * @return Slot number between 0 and capacity - 1
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * Give the slot back (calling it again has no effect)
+         */
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                busyNanos.addAndGet(System.nanoTime() - acquiredNanos);
+                closeQuietly(lockChannel);
+                freeSlots.add(index);
+            }
+        }
+    }
+
+    BrowserSlotScheduler(int capacity) {
+        this.capacity = capacity;
+        // Fair queue: blocked workers are served in arrival order
+        this.freeSlots = new ArrayBlockingQueue<>(capacity, true);
+        for (int i = 0; i < capacity; i++) {
+            freeSlots.add(i);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> System.out.println(getMetrics())));
+    }
+
+    /**
+     * @return Scheduler shared by the tests of this JVM
+     */
+    public static BrowserSlotScheduler getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Wait for a free slot
+     * Blocks the calling test worker while all slots are in use (backpressure).
+     * @return Leased slot, release it after quitting the driver
+     * @throws SessionNotCreatedException if no slot frees up within the timeout
+     */
+    public Slot acquire() {
+        long timeoutSeconds = TestConfig.getInt("grid.slotTimeout", 300);
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+        maxWaiting.accumulateAndGet(waiting.incrementAndGet(), Math::max);
+        Slot slot;
+        try {
+            Integer index = freeSlots.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (index == null) {
+                throw new SessionNotCreatedException("No browser slot became free within " + timeoutSeconds
+                    + " seconds (" + capacity + " slot(s)). " + getMetrics());
+            }
+            slot = lock(index, deadline, timeoutSeconds);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SessionNotCreatedException("Interrupted while waiting for a browser slot");
+        } finally {
+            waiting.decrementAndGet();
+        }
+        long waited = System.nanoTime() - start;
+        acquisitions.incrementAndGet();
+        totalWaitNanos.addAndGet(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+        TestContext.recordStep("BaseTest.waitForSlot", waited);
+        // Queueing is not the test's fault, so it does not count against its deadline
+        TestContext.extendDeadline(waited);
+        return slot;
+    }
+
+    /**
+     * Take the slot's lock file, waiting while a test in another JVM holds it
+     * The wait blocks in FileChannel.lock, so the worker is woken up as soon as the other
+     * JVM releases the slot, and keeps its place meanwhile.
+     * @param deadline System.nanoTime() by which the lock must be held
+     * @return Slot holding its lock file
+     * @throws SessionNotCreatedException if the lock is not released by the deadline or the lock file cannot be used
+     */
+    private Slot lock(int index, long deadline, long timeoutSeconds) {
+        lockDir.mkdirs();
+        File lockFile = new File(lockDir, "slot-" + index + ".lock");
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(lockFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            if (channel.tryLock() == null) {
+                long start = System.nanoTime();
+                // Closing the channel ends the wait with an AsynchronousCloseException
+                final FileChannel waiting = channel;
+                ScheduledFuture<?> timeout = LOCK_TIMEOUTS.schedule(() -> closeQuietly(waiting),
+                    deadline - start, TimeUnit.NANOSECONDS);
+                channel.lock();
+                if (!timeout.cancel(false)) {
+                    // Closed at the deadline right after the lock was taken
+                    throw new AsynchronousCloseException();
+                }
+                lockWaits.incrementAndGet();
+                lockWaitNanos.addAndGet(System.nanoTime() - start);
+            }
+            return new Slot(index, channel);
+        } catch (ClosedByInterruptException e) {
+            freeSlots.add(index);
+            throw new SessionNotCreatedException("Interrupted while waiting for a browser slot");
+        } catch (AsynchronousCloseException e) {
+            freeSlots.add(index);
+            throw new SessionNotCreatedException("Browser slot " + index + " stayed in use by another test JVM for "
+                + timeoutSeconds + " seconds. " + getMetrics());
+        } catch (IOException e) {
+            if (channel != null) {
+                closeQuietly(channel);
+            }
+            // Put the slot back, other workers fail the same way instead of waiting for it
+            freeSlots.add(index);
+            throw new SessionNotCreatedException("Could not lock browser slot file " + lockFile.getPath(), e);
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Nothing left to release
+        }
+    }
+
+    /**
+     * @return Slot capacity (the Grid's slots, shared with other test JVMs)
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return Number of slots currently leased by this JVM
+     */
+    public int getSlotsInUse() {
+        return capacity - freeSlots.size();
+    }
+
+    /**
+     * @return Number of test workers currently waiting for a slot
+     */
+    public int getWaiting() {
+        return waiting.get();
+    }
+
+    /**
+     * @return Share of slot time in use since the scheduler started, between 0 and 1
+     */
+    public double getUtilization() {
+        long elapsed = System.nanoTime() - createdNanos;
+        return elapsed <= 0 ? 0.0 : Math.min(1.0, (double) busyNanos.get() / ((double) elapsed * capacity));
+    }
+
+    /**
+     * @return One-line summary of queue wait times and slot utilization
+     */
+    public String getMetrics() {
+        long count = acquisitions.get();
+        return String.format("Browser slots: capacity %d, in use %d, waiting %d (max %d), sessions %d, "
+                + "queue wait avg %d ms / max %d ms (other test JVMs: %d waits, %d ms), utilization %.1f%%",
+            capacity, getSlotsInUse(), getWaiting(), maxWaiting.get(), count,
+            count == 0 ? 0 : totalWaitNanos.get() / count / 1000000, maxWaitNanos.get() / 1000000,
+            lockWaits.get(), lockWaitNanos.get() / 1000000, getUtilization() * 100);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,140 @@
+package utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Budgets calibrated from the measured values of past runs
+ * Reads build/reports/budgets/measured.properties (BudgetRule appends every test's values to it,
+ * so it holds all runs since the last clean) and proposes a budget for every test and page-object
+ * step: the largest measured value plus a small margin. Wall time measured under a network profile
+ * or cache mode is left out, it is only budgeted for the default conditions. A test that uses a
+ * step far more than the other tests (over twice their median) gets its own budget for the step,
+ * so it does not loosen the step's budget for the others.
+ * Run with "gradle calibrateBudgets"; the budgets are printed and written to
+ * build/reports/budgets/calibrated.properties, ready to be copied into perf-budgets.properties.
+ *
+ * Settings (-Delteshop.budgets.*):
+ * - budgets.margin=0.2   relative headroom over the largest measured value
+ */
+public final class BudgetCalibrator {
+    private static final String[] METRICS = {"commands", "bytes", "seconds"};
+    // Smallest headroom per metric, so small values keep room for a stray poll or a slow page
+    private static final double[] MIN_HEADROOM = {5, 10000, 2};
+    // A test above this multiple of the step's median gets its own step budget
+    private static final double OWN_BUDGET_FACTOR = 2;
+
+    private BudgetCalibrator() {
+    }
+
+    /**
+     * Print the calibrated budgets and write them to build/reports/budgets/calibrated.properties
+     * @param args Not used
+     * @throws IOException if the measurements cannot be read or the budgets cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (!BudgetRule.MEASUREMENTS.isFile()) {
+            System.out.println("No measurements in " + BudgetRule.MEASUREMENTS.getPath() + ", run the tests first.");
+            return;
+        }
+        List<String> lines = calibrate(Files.readAllLines(BudgetRule.MEASUREMENTS.toPath(), StandardCharsets.UTF_8),
+            TestConfig.getDouble("budgets.margin", 0.2));
+        File budgetFile = new File(BudgetRule.MEASUREMENTS.getParentFile(), "calibrated.properties");
+        try (PrintWriter writer = new PrintWriter(budgetFile, "UTF-8")) {
+            for (String line : lines) {
+                System.out.println(line);
+                writer.println(line);
+            }
+        }
+        System.out.println("Calibrated budgets written to " + budgetFile.getPath());
+    }
+
+    /**
+     * Build budget lines
+     * @param measured Lines of the measurements file
+     * @param margin Relative headroom over the largest measured value
+     * @return Budget file lines
+     */
+    static List<String> calibrate(List<String> measured, double margin) {
+        // test.<name>.<metric> -> largest value
+        Map<String, Double> tests = new TreeMap<>();
+        // step.<name>.<metric> -> test -> largest value
+        Map<String, Map<String, Double>> steps = new TreeMap<>();
+        String testName = null;
+        boolean variant = false;
+        for (String line : measured) {
+            if (line.startsWith("# ")) {
+                String[] parts = PerformanceReport.splitVariant(line.substring(2).trim());
+                testName = parts[0];
+                variant = !parts[1].equals("default");
+                continue;
+            }
+            int separator = line.indexOf('=');
+            if (testName == null || separator < 0) {
+                continue;
+            }
+            String key = line.substring(0, separator);
+            if (variant && key.endsWith(".seconds")) {
+                continue;
+            }
+            double value;
+            try {
+                value = Double.parseDouble(line.substring(separator + 1).trim());
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            if (key.startsWith("test.")) {
+                tests.merge(key, value, Math::max);
+            } else if (key.startsWith("step.")) {
+                steps.computeIfAbsent(key, k -> new TreeMap<>()).merge(testName, value, Math::max);
+            }
+        }
+
+        List<String> lines = new ArrayList<>();
+        lines.add("# Calibrated from " + BudgetRule.MEASUREMENTS.getPath() + " with " + Math.round(margin * 100) + "% margin");
+        lines.add("");
+        for (Map.Entry<String, Double> test : tests.entrySet()) {
+            lines.add(test.getKey() + "=" + withHeadroom(test.getKey(), test.getValue(), margin));
+        }
+        lines.add("");
+        for (Map.Entry<String, Map<String, Double>> step : steps.entrySet()) {
+            double[] values = new double[step.getValue().size()];
+            int i = 0;
+            for (double value : step.getValue().values()) {
+                values[i++] = value;
+            }
+            double limit = Stats.median(values) * OWN_BUDGET_FACTOR;
+            double shared = 0;
+            List<String> own = new ArrayList<>();
+            for (Map.Entry<String, Double> test : step.getValue().entrySet()) {
+                if (test.getValue() > limit && values.length > 1) {
+                    own.add("step." + test.getKey() + "/" + step.getKey().substring("step.".length()) + "="
+                        + withHeadroom(step.getKey(), test.getValue(), margin));
+                } else {
+                    shared = Math.max(shared, test.getValue());
+                }
+            }
+            lines.add(step.getKey() + "=" + withHeadroom(step.getKey(), shared, margin));
+            lines.addAll(own);
+        }
+        return lines;
+    }
+
+    private static String withHeadroom(String key, double value, double margin) {
+        for (int i = 0; i < METRICS.length; i++) {
+            if (key.endsWith("." + METRICS[i])) {
+                double budget = Math.max(value * (1 + margin), value + MIN_HEADROOM[i]);
+                // Bytes are rounded up to whole kilobytes
+                return String.valueOf(i == 1 ? (long) Math.ceil(budget / 1000) * 1000 : (long) Math.ceil(budget));
+            }
+        }
+        return String.valueOf(value);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,224 @@
+package utils;
+
+import org.junit.rules.TestRule;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * JUnit rule that checks each test against its performance budget
+ * Budgets are kept in src/test/resources/perf-budgets.properties: maximum WebDriver
+ * commands, bytes exchanged with the Grid and wall time, per test method and per
+ * page-object method (all calls within one test). A step budget can be given for one
+ * test only (step.<TestClass>.<testMethod>/<PageClass>.<method>.<metric>), for tests
+ * that call the step far more often than the others. A test over budget fails with a
+ * breakdown per step in enforce mode and is logged in report mode. Wall time depends on
+ * the Grid's load, so a test over its time budget is only logged, in enforce mode too. Tests that fail
+ * anyway are not checked. The measured values of every test are appended to
+ * build/reports/budgets/measured.properties, in the budget file's format; BudgetCalibrator
+ * turns them into budgets. Must run inside PerformanceRecorder (it needs the test's TestContext).
+ *
+ * Settings (-Delteshop.*):
+ * - budgets=report       enforce, report or off
+ * - budgets.file=path    budget file instead of the perf-budgets.properties resource
+ */
+public class BudgetRule implements TestRule {
+    private static final String[] METRICS = {"commands", "bytes", "seconds"};
+    static final File MEASUREMENTS = new File("build/reports/budgets/measured.properties");
+    private static final Properties BUDGETS = loadBudgets();
+
+    @Override
+    public Statement apply(final Statement base, final Description description) {
+        final String mode = TestConfig.getString("budgets", "report");
+        if ("off".equalsIgnoreCase(mode)) {
+            return base;
+        }
+        return new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+                base.evaluate();
+                TestContext context = TestContext.current();
+                if (context == null) {
+                    return;
+                }
+                // Parameterized tests share the budget of their method
+                String testName = context.getTestName().replaceAll("\\[.*\\]$", "");
+                Map<String, double[]> steps = measureSteps(context);
+                double[] test = measureTest(context, steps);
+                appendMeasurements(testName, test, steps);
+
+                List<String> violations = new ArrayList<>();
+                List<String> timeViolations = new ArrayList<>();
+                check("test", null, testName, test, violations, timeViolations);
+                for (Map.Entry<String, double[]> step : steps.entrySet()) {
+                    if (isPageObjectMethod(step.getKey())) {
+                        check("step", testName, step.getKey(), step.getValue(), violations, timeViolations);
+                    }
+                }
+                if (violations.isEmpty() && timeViolations.isEmpty()) {
+                    return;
+                }
+                List<String> all = new ArrayList<>(violations);
+                all.addAll(timeViolations);
+                String message = context.getTestName() + " exceeded its performance budget:\n  "
+                    + String.join("\n  ", all) + "\n" + describe(test, steps);
+                if ("enforce".equalsIgnoreCase(mode) && !violations.isEmpty()) {
+                    throw new AssertionError(message);
+                }
+                System.err.println("Performance budget: " + message);
+            }
+        };
+    }
+
+    /**
+     * @return Step name to {commands, bytes, seconds}
+     */
+    private static Map<String, double[]> measureSteps(TestContext context) {
+        Map<String, double[]> steps = new TreeMap<>();
+        for (Map.Entry<String, long[]> entry : context.getTraffic().entrySet()) {
+            double[] values = steps.computeIfAbsent(entry.getKey(), key -> new double[3]);
+            values[0] = entry.getValue()[0];
+            values[1] = entry.getValue()[1];
+        }
+        for (Map.Entry<String, long[]> entry : context.getSteps().entrySet()) {
+            steps.computeIfAbsent(entry.getKey(), key -> new double[3])[2] = entry.getValue()[0] / 1e9;
+        }
+        return steps;
+    }
+
+    /**
+     * @return Test totals {commands, bytes, seconds}; queueing and warm-up time is left out
+     */
+    private static double[] measureTest(TestContext context, Map<String, double[]> steps) {
+        double[] test = new double[3];
+        for (double[] step : steps.values()) {
+            test[0] += step[0];
+            test[1] += step[1];
+        }
+        test[2] = Math.max(0, context.getElapsedNanos() - context.getExcludedNanos()) / 1e9;
+        return test;
+    }
+
+    /**
+     * @param violations Receives the commands and bytes over budget
+     * @param timeViolations Receives the wall time over budget, which is never enforced
+     */
+    private static void check(String kind, String testName, String name, double[] measured,
+            List<String> violations, List<String> timeViolations) {
+        for (int i = 0; i < METRICS.length; i++) {
+            // Wall time depends on the run conditions, it is only budgeted for the default ones
+            if (METRICS[i].equals("seconds") && !RunVariant.label().isEmpty()) {
+                continue;
+            }
+            Double budget = budget(kind, testName, name, METRICS[i]);
+            if (budget != null && measured[i] > budget) {
+                (METRICS[i].equals("seconds") ? timeViolations : violations).add(String.format("%s %s: %s %s, budget %s", kind, name,
+                    METRICS[i], format(measured[i], i), format(budget, i)));
+            }
+        }
+    }
+
+    /**
+     * @param testName Test the step ran in, for its own step budget, or null
+     * @return Most specific budget, or null if there is none
+     */
+    private static Double budget(String kind, String testName, String name, String metric) {
+        String value = BUDGETS.getProperty(kind + "." + name + "." + metric, BUDGETS.getProperty(kind + ".default." + metric));
+        if (testName != null) {
+            value = BUDGETS.getProperty(kind + "." + testName + "/" + name + "." + metric, value);
+        }
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Double.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Performance budget: invalid value for " + kind + "." + name + "." + metric + ": " + value);
+            return null;
+        }
+    }
+
+    /**
+     * Steps of page-object methods get budgets; test methods, setup and
+     * infrastructure steps (slot queueing, ...) only count towards the test
+     */
+    private static boolean isPageObjectMethod(String step) {
+        int separator = step.indexOf('.');
+        if (separator <= 0) {
+            return false;
+        }
+        try {
+            Class.forName("pages." + step.substring(0, separator), false, BudgetRule.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    private static String describe(double[] test, Map<String, double[]> steps) {
+        List<Map.Entry<String, double[]>> entries = new ArrayList<>(steps.entrySet());
+        entries.sort((a, b) -> Double.compare(b.getValue()[0], a.getValue()[0]));
+        StringBuilder text = new StringBuilder(String.format("  %-55s %9s %12s %9s", "Step", "commands", "bytes", "seconds"));
+        for (Map.Entry<String, double[]> entry : entries) {
+            double[] values = entry.getValue();
+            text.append(String.format("%n  %-55s %9.0f %12.0f %9.1f", entry.getKey(), values[0], values[1], values[2]));
+        }
+        text.append(String.format("%n  %-55s %9.0f %12.0f %9.1f", "(test total)", test[0], test[1], test[2]));
+        return text.toString();
+    }
+
+    private static String format(double value, int metric) {
+        return METRICS[metric].equals("seconds") ? String.format("%.1f", value) : String.format("%.0f", value);
+    }
+
+    private static synchronized void appendMeasurements(String testName, double[] test, Map<String, double[]> steps) {
+        MEASUREMENTS.getParentFile().mkdirs();
+        StringBuilder text = new StringBuilder("# " + testName
+            + (RunVariant.label().isEmpty() ? "" : " [" + RunVariant.label() + "]") + "\n");
+        for (int i = 0; i < METRICS.length; i++) {
+            text.append("test.").append(testName).append('.').append(METRICS[i]).append('=').append(format(test[i], i)).append('\n');
+        }
+        for (Map.Entry<String, double[]> step : steps.entrySet()) {
+            if (!isPageObjectMethod(step.getKey())) {
+                continue;
+            }
+            for (int i = 0; i < METRICS.length; i++) {
+                text.append("step.").append(step.getKey()).append('.').append(METRICS[i]).append('=')
+                    .append(format(step.getValue()[i], i)).append('\n');
+            }
+        }
+        // One write per test, so parallel test JVMs do not interleave their blocks
+        try (Writer writer = new FileWriter(MEASUREMENTS, true)) {
+            writer.write(text.toString());
+        } catch (IOException e) {
+            System.err.println("Performance budget: could not write " + MEASUREMENTS.getPath() + ": " + e.getMessage());
+        }
+    }
+
+    private static Properties loadBudgets() {
+        Properties budgets = new Properties();
+        String file = TestConfig.getString("budgets.file", "");
+        try (InputStream in = file.isEmpty()
+                ? BudgetRule.class.getResourceAsStream("/perf-budgets.properties")
+                : new FileInputStream(file)) {
+            if (in == null) {
+                System.err.println("Performance budget: perf-budgets.properties not found, no budgets are checked");
+            } else {
+                budgets.load(in);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read budget file " + file, e);
+        }
+        return budgets;
+    }
+}
\ No newline at end of file
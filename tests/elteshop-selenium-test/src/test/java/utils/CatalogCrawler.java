@@ -0,0 +1,81 @@
+package utils;
+
+import org.openqa.selenium.WebDriver;
+import pages.HomePage;
+import pages.ProductListPage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Builds the CatalogIndex by walking the shop's category listings
+ * Starts from the Clothes and Products menus of the home page and follows the
+ * pagination of each listing. The index is crawled once and reused from
+ * catalog-index/ until it is older than the maximum age.
+ *
+ * Settings (-Delteshop.catalog.*):
+ * - catalog.maxAgeHours=24   reuse a stored index younger than this
+ * - catalog.rebuild=false    crawl again even when a stored index is fresh
+ * - catalog.maxPages=50      listing pages visited per category at most
+ */
+public final class CatalogCrawler {
+    private static CatalogIndex index;
+
+    private CatalogCrawler() {
+    }
+
+    /**
+     * Get the catalog index, crawling the shop with the given driver when no fresh index is stored
+     * Crawl time is recorded as step "CatalogCrawler.crawl" and does not count against the test's deadline.
+     * @param driver WebDriver instance used for crawling
+     * @return Catalog index
+     */
+    public static synchronized CatalogIndex getIndex(WebDriver driver) {
+        if (index == null && !TestConfig.getBoolean("catalog.rebuild", false)) {
+            index = storedIndex();
+        }
+        if (index == null) {
+            long start = System.nanoTime();
+            index = CatalogIndex.build(crawl(driver));
+            index.save(CatalogIndex.indexFile());
+            long elapsed = System.nanoTime() - start;
+            TestContext.recordStep("CatalogCrawler.crawl", elapsed);
+            TestContext.extendDeadline(elapsed);
+            System.out.println("Catalog index: " + index.getProductCount() + " products crawled in "
+                + elapsed / 1000000 + " ms");
+        }
+        return index;
+    }
+
+    /**
+     * Read the stored index without crawling
+     * @return Index, or null when there is no fresh stored index
+     */
+    public static CatalogIndex storedIndex() {
+        return CatalogIndex.load(CatalogIndex.indexFile(), TestConfig.getInt("catalog.maxAgeHours", 24));
+    }
+
+    /**
+     * @return Product URL to name of every listed product
+     */
+    private static Map<String, String> crawl(WebDriver driver) {
+        Map<String, String> links = new LinkedHashMap<>();
+        crawlCategory(driver, HomePage::navigateToClothes, links);
+        crawlCategory(driver, HomePage::navigateToProducts, links);
+        return links;
+    }
+
+    private static void crawlCategory(WebDriver driver, Function<HomePage, ProductListPage> category, Map<String, String> links) {
+        ProductListPage listPage = category.apply(new HomePage(driver).open());
+        int maxPages = TestConfig.getInt("catalog.maxPages", 50);
+        for (int page = 1; ; page++) {
+            for (Map.Entry<String, String> link : listPage.getProductLinks().entrySet()) {
+                links.putIfAbsent(link.getKey(), link.getValue());
+            }
+            if (page >= maxPages || !listPage.hasNextPage()) {
+                return;
+            }
+            listPage = listPage.nextPage();
+        }
+    }
+}
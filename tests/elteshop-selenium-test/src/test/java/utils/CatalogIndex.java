@@ -0,0 +1,261 @@
+package utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Inverted index of the shop's product names
+ * Products are identified by their URL, so products sharing a name are indexed separately.
+ * Maps every name token to the sorted ids of the products whose name contains it, so the
+ * expected results of a keyword search are computed locally (posting list intersection)
+ * instead of in the browser. Built by CatalogCrawler and stored in catalog-index/catalog.idx.
+ * File format: version (int), build time (long, epoch millis), product count (int),
+ * per product its URL and name (UTF), token count (int), then per token: token (UTF),
+ * posting count (int) and the ids as gaps to the previous id (int).
+ */
+public final class CatalogIndex {
+    private static final int FORMAT_VERSION = 2;
+
+    private final long builtMillis;
+    private final List<String> urls;
+    private final List<String> names;
+    private final Map<String, int[]> postings;
+
+    private CatalogIndex(long builtMillis, List<String> urls, List<String> names, Map<String, int[]> postings) {
+        this.builtMillis = builtMillis;
+        this.urls = urls;
+        this.names = names;
+        this.postings = postings;
+    }
+
+    /**
+     * Build index from product links
+     * @param productLinks Product URL to name (URLs are compared without query and fragment)
+     * @return New index
+     */
+    public static CatalogIndex build(Map<String, String> productLinks) {
+        Map<String, String> products = new LinkedHashMap<>();
+        for (Map.Entry<String, String> link : productLinks.entrySet()) {
+            products.putIfAbsent(productUrl(link.getKey()), link.getValue());
+        }
+        List<String> urls = new ArrayList<>(products.keySet());
+        List<String> names = new ArrayList<>(products.values());
+        Map<String, List<Integer>> lists = new HashMap<>();
+        for (int id = 0; id < names.size(); id++) {
+            for (String token : tokenize(names.get(id))) {
+                List<Integer> list = lists.computeIfAbsent(token, key -> new ArrayList<>());
+                // Ids are added in increasing order, a repeated token only needs one entry
+                if (list.isEmpty() || list.get(list.size() - 1) != id) {
+                    list.add(id);
+                }
+            }
+        }
+        Map<String, int[]> postings = new HashMap<>();
+        for (Map.Entry<String, List<Integer>> entry : lists.entrySet()) {
+            int[] ids = new int[entry.getValue().size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = entry.getValue().get(i);
+            }
+            postings.put(entry.getKey(), ids);
+        }
+        return new CatalogIndex(System.currentTimeMillis(), urls, names, postings);
+    }
+
+    /**
+     * Product URL as the index stores it, without query and fragment (e.g. the search keywords)
+     * @param url Product link
+     * @return URL identifying the product
+     */
+    public static String productUrl(String url) {
+        int end = url.length();
+        for (char separator : new char[] {'?', '#'}) {
+            int index = url.indexOf(separator);
+            if (index >= 0) {
+                end = Math.min(end, index);
+            }
+        }
+        return url.substring(0, end);
+    }
+
+    /**
+     * Split text into lower case search tokens (runs of letters and digits)
+     * @param text Text
+     * @return Distinct tokens in order of appearance
+     */
+    public static Set<String> tokenize(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Find products whose name contains every token of the query
+     * @param query Search keywords
+     * @return Sorted product ids (empty for a query without tokens)
+     */
+    public int[] lookup(String query) {
+        int[] result = null;
+        for (String token : tokenize(query)) {
+            int[] ids = postings.get(token);
+            if (ids == null) {
+                return new int[0];
+            }
+            result = result == null ? ids : intersect(result, ids);
+        }
+        return result == null ? new int[0] : result;
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    /**
+     * Count products whose name contains every token of the query
+     * @param query Search keywords
+     * @return Number of matching products
+     */
+    public int count(String query) {
+        return lookup(query).length;
+    }
+
+    /**
+     * Get the products whose name contains every token of the query
+     * @param query Search keywords
+     * @return Product URL to name of the matching products
+     */
+    public Map<String, String> matchingProducts(String query) {
+        Map<String, String> result = new LinkedHashMap<>();
+        for (int id : lookup(query)) {
+            result.put(urls.get(id), names.get(id));
+        }
+        return result;
+    }
+
+    /**
+     * @return Number of indexed products
+     */
+    public int getProductCount() {
+        return urls.size();
+    }
+
+    /**
+     * @return Build time in epoch millis
+     */
+    public long getBuiltMillis() {
+        return builtMillis;
+    }
+
+    /**
+     * @return Default index file location
+     */
+    public static File indexFile() {
+        return new File(TestConfig.getString("catalog.indexDir", "catalog-index"), "catalog.idx");
+    }
+
+    /**
+     * Write index to a file
+     * @param file Target file
+     */
+    public void save(File file) {
+        file.getParentFile().mkdirs();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(builtMillis);
+            out.writeInt(urls.size());
+            for (int id = 0; id < urls.size(); id++) {
+                out.writeUTF(urls.get(id));
+                out.writeUTF(names.get(id));
+            }
+            out.writeInt(postings.size());
+            for (Map.Entry<String, int[]> entry : postings.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeInt(entry.getValue().length);
+                int previous = 0;
+                for (int id : entry.getValue()) {
+                    out.writeInt(id - previous);
+                    previous = id;
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Could not write catalog index to " + file.getPath() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Read index from a file
+     * @param file Index file
+     * @param maxAgeHours Maximum index age, older indexes are treated as missing
+     * @return Index, or null when the file is missing, too old or unreadable
+     */
+    public static CatalogIndex load(File file, int maxAgeHours) {
+        if (!file.exists()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != FORMAT_VERSION) {
+                return null;
+            }
+            long builtMillis = in.readLong();
+            if (System.currentTimeMillis() - builtMillis > maxAgeHours * 3600000L) {
+                return null;
+            }
+            int productCount = in.readInt();
+            List<String> urls = new ArrayList<>(productCount);
+            List<String> names = new ArrayList<>(productCount);
+            for (int i = 0; i < productCount; i++) {
+                urls.add(in.readUTF());
+                names.add(in.readUTF());
+            }
+            int tokenCount = in.readInt();
+            Map<String, int[]> postings = new HashMap<>(tokenCount * 2);
+            for (int i = 0; i < tokenCount; i++) {
+                String token = in.readUTF();
+                int[] ids = new int[in.readInt()];
+                int previous = 0;
+                for (int j = 0; j < ids.length; j++) {
+                    previous += in.readInt();
+                    ids[j] = previous;
+                }
+                postings.put(token, ids);
+            }
+            return new CatalogIndex(builtMillis, urls, names, postings);
+        } catch (IOException e) {
+            System.err.println("Could not read catalog index " + file.getPath() + ": " + e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package utils;
+
+import pages.ContactPage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+/**
+ * Generates contact form inputs and checks how the form validates them, without submitting
+ * Every case resets the form in place, fills it and reads its state back (three script
+ * calls, no page reload, nothing is sent to the shop). A case fails when
+ * - a field does not hold the value that was filled in (after the browser's own value sanitization)
+ * - a field's validity and its validationMessage disagree (invalid without a message or the other way round)
+ * - an empty required field, or an unchecked required consent checkbox, counts as valid
+ * - the browser's e-mail check disagrees with the HTML rules for ASCII addresses
+ * - the form's checkValidity() passes although one of its fields is invalid
+ * - the consent checkbox is not in the requested state, or the continue button is hidden
+ * Cases are generated from a seed, so a failing run can be repeated with the same seed.
+ */
+public final class ContactFormFuzzer {
+    // E-mail syntax of the HTML standard's input type=email
+    private static final Pattern HTML_EMAIL = Pattern.compile(
+        "^[a-zA-Z0-9.!#$%&'*+/=?^_`{|}~-]+@[a-zA-Z0-9](?:[a-zA-Z0-9-]{0,61}[a-zA-Z0-9])?"
+        + "(?:\\.[a-zA-Z0-9](?:[a-zA-Z0-9-]{0,61}[a-zA-Z0-9])?)*$");
+    private static final Pattern ASCII = Pattern.compile("^[\\x00-\\x7F]*$");
+    private static final int MAX_REPORTED_FAILURES = 20;
+
+    private static final String[] NAMES = {
+        "Test User", "", " ", "\u00C1rv\u00EDzt\u0171r\u0151 T\u00FCk\u00F6rf\u00FAr\u00F3g\u00E9p", "Zo\u00EB \u00D8deg\u00E5rd", "\u674E\u5C0F\u9F8D", "\u0645\u062D\u0645\u062F \u0628\u0646 \u0633\u0644\u0645\u0627\u0646",
+        "\uD83D\uDE00 Emoji \uD83D\uDC4D\uD83C\uDFFD", "O'Brien-Smith", "<b>bold</b>", "Robert'); DROP TABLE customers;--", "\tTabbed\tName"
+    };
+    private static final String[] EMAILS = {
+        "", "plainaddress", "@example.com", "user@", "user@@example.com", "user@example..com",
+        "user name@example.com", " user@example.com ", "user@-example.com", "user@example.com.",
+        "\u00FCser@example.com", "user@ex\u00E4mple.com", "\"quoted\"@example.com", "a@b", "user+tag@sub.example.co.uk",
+        "first.last@example.com", "user@[127.0.0.1]", "user@localhost"
+    };
+    private static final String[] ENQUIRIES = {
+        "", "\r\n", "<script>alert(1)</script>", "' OR '1'='1", "Line one\nLine two\r\nLine three\rLine four",
+        "\u00DCnnepi aj\u00E1nd\u00E9kot szeretn\u00E9k rendelni. K\u00F6sz\u00F6n\u00F6m!", "\uD83D\uDE00\uD83D\uDE03\uD83D\uDE04\uD83D\uDE01\uD83D\uDE06\uD83D\uDE05\uD83D\uDE02\uD83E\uDD23"
+    };
+    // Code point ranges mixed into random text: ASCII, Latin-1 and Hungarian letters, Greek,
+    // Cyrillic, Arabic, CJK, combining marks and emoji (outside the Basic Multilingual Plane)
+    private static final int[][] CODE_POINT_RANGES = {
+        {0x20, 0x7E}, {0xC0, 0x17F}, {0x391, 0x3C9}, {0x410, 0x44F}, {0x621, 0x64A},
+        {0x4E00, 0x4FFF}, {0x300, 0x36F}, {0x1F600, 0x1F64F}
+    };
+
+    private final long seed;
+    private final Random random;
+    private final int maxEnquiryLength = TestConfig.getInt("fuzz.maxEnquiryLength", 5000);
+
+    /**
+     * One generated form input
+     */
+    public static final class Case {
+        public final String name;
+        public final String email;
+        public final String enquiry;
+        public final boolean gdprConsent;
+
+        Case(String name, String email, String enquiry, boolean gdprConsent) {
+            this.name = name;
+            this.email = email;
+            this.enquiry = enquiry;
+            this.gdprConsent = gdprConsent;
+        }
+
+        @Override
+        public String toString() {
+            return "name=" + abbreviate(name) + ", email=" + abbreviate(email) + ", enquiry=" + abbreviate(enquiry)
+                + " (" + enquiry.length() + " chars), consent=" + gdprConsent;
+        }
+    }
+
+    /**
+     * Result of a fuzzing run
+     */
+    public static final class Report {
+        private final long seed;
+        private final int cases;
+        private final int failedCases;
+        private final List<String> failures;
+        private final long elapsedNanos;
+
+        Report(long seed, int cases, int failedCases, List<String> failures, long elapsedNanos) {
+            this.seed = seed;
+            this.cases = cases;
+            this.failedCases = failedCases;
+            this.failures = failures;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * @return Descriptions of the first failing cases (at most 20)
+         */
+        public List<String> getFailures() {
+            return Collections.unmodifiableList(failures);
+        }
+
+        /**
+         * @return Number of failing cases
+         */
+        public int getFailedCases() {
+            return failedCases;
+        }
+
+        /**
+         * @return Checked cases per second
+         */
+        public double getCasesPerSecond() {
+            return elapsedNanos == 0 ? 0.0 : cases / (elapsedNanos / 1e9);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder(String.format(
+                "Contact form fuzzing (seed %d): %d case(s) in %.1f s, %.1f cases/s, %d failed",
+                seed, cases, elapsedNanos / 1e9, getCasesPerSecond(), failedCases));
+            for (String failure : failures) {
+                text.append("\n  ").append(failure);
+            }
+            return text.toString();
+        }
+    }
+
+    /**
+     * Constructor
+     * @param seed Random seed
+     */
+    public ContactFormFuzzer(long seed) {
+        this.seed = seed;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Generate the next case
+     * @return Generated case
+     */
+    public Case nextCase() {
+        String name = random.nextBoolean() ? pick(NAMES) : randomText(1 + random.nextInt(random.nextInt(10) == 0 ? 500 : 40));
+        String email = random.nextBoolean() ? pick(EMAILS) : randomEmail();
+        String enquiry = random.nextInt(4) == 0 ? pick(ENQUIRIES) : randomText(random.nextInt(maxEnquiryLength + 1));
+        return new Case(name, email, enquiry, random.nextBoolean());
+    }
+
+    /**
+     * Run cases against an open contact page, without submitting the form
+     * @param contactPage Opened contact page
+     * @param cases Number of cases
+     * @return Report with failures and throughput
+     */
+    public Report run(ContactPage contactPage, int cases) {
+        List<String> failures = new ArrayList<>();
+        int failedCases = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < cases; i++) {
+            Case input = nextCase();
+            contactPage.resetContactForm(input.gdprConsent);
+            contactPage.fillContactForm(input.name, input.email, input.enquiry);
+            List<String> problems = check(input, contactPage.getFormState());
+            if (!problems.isEmpty()) {
+                failedCases++;
+                if (failures.size() < MAX_REPORTED_FAILURES) {
+                    failures.add("case " + i + " [" + input + "]: " + String.join("; ", problems));
+                }
+            }
+        }
+        return new Report(seed, cases, failedCases, failures, System.nanoTime() - start);
+    }
+
+    private static List<String> check(Case input, ContactPage.FormState state) {
+        List<String> problems = new ArrayList<>();
+        checkValue("name", input.name, state.name, problems);
+        checkValue("email", input.email, state.email, problems);
+        checkValue("enquiry", input.enquiry, state.enquiry, problems);
+        boolean fieldInvalid = checkValidity("name", state.name, problems);
+        fieldInvalid |= checkValidity("email", state.email, problems);
+        fieldInvalid |= checkValidity("enquiry", state.enquiry, problems);
+        fieldInvalid |= checkValidity("consent", state.gdprConsent, problems);
+        if (state.email != null && "email".equals(state.email.get("type"))) {
+            String value = (String) state.email.get("value");
+            // Chrome's handling of international addresses is not checked, only plain ASCII ones
+            if (!value.isEmpty() && ASCII.matcher(value).matches()) {
+                boolean expectedValid = HTML_EMAIL.matcher(value).matches();
+                boolean browserValid = !Boolean.TRUE.equals(state.email.get("typeMismatch"));
+                if (expectedValid != browserValid) {
+                    problems.add("e-mail " + abbreviate(value) + " should be " + (expectedValid ? "valid" : "invalid"));
+                }
+            }
+        }
+        if (fieldInvalid && Boolean.TRUE.equals(state.formValid)) {
+            problems.add("form passes checkValidity() with an invalid field");
+        }
+        if (state.gdprConsent != null && !String.valueOf(input.gdprConsent).equals(state.gdprConsent.get("value"))) {
+            problems.add("consent checkbox should be " + (input.gdprConsent ? "checked" : "unchecked"));
+        }
+        if (!state.continueButtonVisible) {
+            problems.add("continue button is hidden");
+        }
+        return problems;
+    }
+
+    private static void checkValue(String fieldName, String filled, Map<String, Object> field, List<String> problems) {
+        if (field == null) {
+            problems.add(fieldName + " field is missing");
+            return;
+        }
+        String expected = sanitize(filled, (String) field.get("type"));
+        if (!expected.equals(field.get("value"))) {
+            problems.add(fieldName + " holds " + abbreviate((String) field.get("value")) + " instead of " + abbreviate(expected));
+        }
+    }
+
+    /**
+     * Check that the field's validity, validationMessage and required state agree
+     * @return Whether the field is invalid (false for a missing field)
+     */
+    private static boolean checkValidity(String fieldName, Map<String, Object> field, List<String> problems) {
+        if (field == null) {
+            return false;
+        }
+        String type = (String) field.get("type");
+        boolean valid = Boolean.TRUE.equals(field.get("valid"));
+        String message = (String) field.get("message");
+        if (valid != (message == null || message.isEmpty())) {
+            problems.add(fieldName + " field is " + (valid ? "valid with validation message " + abbreviate(message) : "invalid without a validation message"));
+        }
+        String value = (String) field.get("value");
+        boolean empty = "checkbox".equals(type) ? "false".equals(value) : value.isEmpty();
+        if (Boolean.TRUE.equals(field.get("required")) && empty && !Boolean.TRUE.equals(field.get("valueMissing"))) {
+            problems.add("empty required " + fieldName + " field is not reported as missing");
+        }
+        return !valid;
+    }
+
+    /**
+     * Apply the browser's value sanitization: textareas normalize line breaks, single-line
+     * inputs drop them, and e-mail inputs also trim surrounding whitespace
+     */
+    private static String sanitize(String value, String type) {
+        if ("textarea".equals(type)) {
+            return value.replace("\r\n", "\n").replace('\r', '\n');
+        }
+        String singleLine = value.replace("\r", "").replace("\n", "");
+        return "email".equals(type) ? singleLine.replaceAll("^[\\t\\f ]+|[\\t\\f ]+$", "") : singleLine;
+    }
+
+    private String pick(String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private String randomText(int length) {
+        StringBuilder text = new StringBuilder(length);
+        while (text.length() < length) {
+            int roll = random.nextInt(20);
+            if (roll == 0) {
+                text.append('\n');
+            } else if (roll < 4) {
+                text.append(' ');
+            } else {
+                int[] range = CODE_POINT_RANGES[random.nextInt(CODE_POINT_RANGES.length)];
+                text.appendCodePoint(range[0] + random.nextInt(range[1] - range[0] + 1));
+            }
+        }
+        return text.toString();
+    }
+
+    private String randomEmail() {
+        String localChars = "abcdefghijklmnopqrstuvwxyz0123456789._%+-";
+        StringBuilder email = new StringBuilder();
+        int localLength = 1 + random.nextInt(random.nextInt(10) == 0 ? 100 : 20);
+        for (int i = 0; i < localLength; i++) {
+            email.append(localChars.charAt(random.nextInt(localChars.length())));
+        }
+        email.append('@');
+        int labels = 1 + random.nextInt(3);
+        for (int label = 0; label < labels; label++) {
+            if (label > 0) {
+                email.append('.');
+            }
+            int labelLength = 1 + random.nextInt(random.nextInt(10) == 0 ? 70 : 12);
+            for (int i = 0; i < labelLength; i++) {
+                email.append("abcdefghijklmnopqrstuvwxyz0123456789-".charAt(random.nextInt(37)));
+            }
+        }
+        return email.toString();
+    }
+
+    private static String abbreviate(String text) {
+        String shown = text.length() > 40 ? text.substring(0, 40) + "..." : text;
+        return "\"" + shown.replace("\n", "\\n").replace("\r", "\\r") + "\"";
+    }
+}
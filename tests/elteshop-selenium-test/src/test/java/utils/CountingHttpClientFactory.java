@@ -0,0 +1,59 @@
+package utils;
+
+import org.openqa.selenium.remote.http.HttpClient;
+import org.openqa.selenium.remote.http.HttpResponse;
+import java.net.URL;
+
+/**
+ * HTTP client factory that counts the bytes of WebDriver requests and responses
+ * The counts (message bodies) are reported to the running test's TestContext and
+ * attributed to the page-object step that issued the command. Requests made outside
+ * a test (e.g. by the deadline watchdog) are not counted.
+ */
+final class CountingHttpClientFactory implements HttpClient.Factory {
+    private final HttpClient.Factory delegate;
+
+    /**
+     * Constructor
+     * @param delegate Factory creating the real clients
+     */
+    CountingHttpClientFactory(HttpClient.Factory delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public HttpClient.Builder builder() {
+        final HttpClient.Builder delegateBuilder = delegate.builder();
+        return new HttpClient.Builder() {
+            @Override
+            public HttpClient createClient(URL url) {
+                delegateBuilder.connectionTimeout(connectionTimeout).readTimeout(readTimeout);
+                if (proxy != null) {
+                    delegateBuilder.proxy(proxy);
+                }
+                return counting(delegateBuilder.createClient(url));
+            }
+        };
+    }
+
+    @Override
+    public HttpClient createClient(URL url) {
+        return counting(delegate.createClient(url));
+    }
+
+    @Override
+    public void cleanupIdleClients() {
+        delegate.cleanupIdleClients();
+    }
+
+    // getContent is deprecated in favour of streaming, but it buffers the body, so the executor can still read it
+    @SuppressWarnings("deprecation")
+    private static HttpClient counting(HttpClient client) {
+        return request -> {
+            long sent = request.getContent().length;
+            HttpResponse response = client.execute(request);
+            TestContext.recordTraffic(0, sent + response.getContent().length);
+            return response;
+        };
+    }
+}
\ No newline at end of file
@@ -0,0 +1,19 @@
+package utils;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Overrides the time budget of a single test (see TestDeadline)
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Deadline {
+
+    /**
+     * @return Time budget of the test in seconds
+     */
+    int seconds();
+}
\ No newline at end of file
@@ -0,0 +1,28 @@
+package utils;
+
+import org.openqa.selenium.TimeoutException;
+
+/**
+ * Thrown when a test runs out of its time budget
+ * The message contains the breakdown of where the test's time went.
+ */
+public class DeadlineExceededException extends TimeoutException {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructor
+     * @param message Message with time breakdown
+     */
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+
+    /**
+     * Constructor
+     * @param message Message with time breakdown
+     * @param cause Exception that ended the test
+     */
+    public DeadlineExceededException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
\ No newline at end of file
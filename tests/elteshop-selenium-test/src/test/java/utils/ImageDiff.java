@@ -0,0 +1,166 @@
+package utils;
+
+import java.awt.image.BufferedImage;
+import java.util.stream.IntStream;
+
+/**
+ * Screenshot comparison engine used by the visual checks
+ * Works directly on int[] ARGB buffers; pixels are compared tile by tile in parallel
+ */
+public final class ImageDiff {
+    // Rows per tile processed by one parallel task
+    private static final int TILE_ROWS = 64;
+    private static final int DIFF_COLOR = 0xFFFF0000;
+
+    private final int width;
+    private final int height;
+    private final boolean sameSize;
+    private final int[] expected;
+    private final int[] actual;
+
+    /**
+     * Comparison result
+     */
+    public static final class Result {
+        private final boolean sizeMismatch;
+        private final long differentPixels;
+        private final long totalPixels;
+
+        private Result(boolean sizeMismatch, long differentPixels, long totalPixels) {
+            this.sizeMismatch = sizeMismatch;
+            this.differentPixels = differentPixels;
+            this.totalPixels = totalPixels;
+        }
+
+        /**
+         * @return Whether the images have different dimensions
+         */
+        public boolean isSizeMismatch() {
+            return sizeMismatch;
+        }
+
+        /**
+         * @return Number of pixels that differ beyond the channel tolerance
+         */
+        public long getDifferentPixels() {
+            return differentPixels;
+        }
+
+        /**
+         * @return Share of differing pixels between 0 and 1
+         */
+        public double getDifferenceRatio() {
+            if (sizeMismatch) {
+                return 1.0;
+            }
+            return totalPixels == 0 ? 0.0 : (double) differentPixels / totalPixels;
+        }
+
+        /**
+         * Check result against threshold
+         * @param threshold Maximum allowed share of differing pixels
+         * @return Whether the difference exceeds the threshold
+         */
+        public boolean exceeds(double threshold) {
+            return sizeMismatch || getDifferenceRatio() > threshold;
+        }
+
+        @Override
+        public String toString() {
+            if (sizeMismatch) {
+                return "image size differs";
+            }
+            return String.format("%d of %d pixels differ (%.3f%%)", differentPixels, totalPixels, getDifferenceRatio() * 100);
+        }
+    }
+
+    private ImageDiff(BufferedImage expectedImage, BufferedImage actualImage) {
+        this.width = expectedImage.getWidth();
+        this.height = expectedImage.getHeight();
+        this.sameSize = width == actualImage.getWidth() && height == actualImage.getHeight();
+        this.expected = pixels(expectedImage);
+        this.actual = pixels(actualImage);
+    }
+
+    /**
+     * Compare two images
+     * @param expectedImage Baseline image
+     * @param actualImage Current screenshot
+     * @return Comparison that can be run and, when needed, rendered as a diff image
+     */
+    public static ImageDiff compare(BufferedImage expectedImage, BufferedImage actualImage) {
+        return new ImageDiff(expectedImage, actualImage);
+    }
+
+    /**
+     * Run the comparison
+     * @param channelTolerance Largest per-channel difference (0-255) still counted as equal
+     * @return Comparison result
+     */
+    public Result run(int channelTolerance) {
+        if (!sameSize) {
+            return new Result(true, 0, expected.length);
+        }
+        long different = IntStream.range(0, tileCount())
+            .parallel()
+            .mapToLong(tile -> countTile(tile, channelTolerance))
+            .sum();
+        return new Result(false, different, expected.length);
+    }
+
+    /**
+     * Build diff image: the actual screenshot with differing pixels painted red
+     * Only call this when the threshold is exceeded, it allocates a full buffer
+     * @param channelTolerance Largest per-channel difference (0-255) still counted as equal
+     * @return Diff image
+     */
+    public BufferedImage diffImage(int channelTolerance) {
+        if (!sameSize) {
+            throw new IllegalStateException("Cannot build diff image for images of different size");
+        }
+        int[] out = new int[actual.length];
+        IntStream.range(0, tileCount()).parallel().forEach(tile -> {
+            int end = tileEnd(tile);
+            for (int i = tile * TILE_ROWS * width; i < end; i++) {
+                out[i] = isDifferent(expected[i], actual[i], channelTolerance) ? DIFF_COLOR : actual[i];
+            }
+        });
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        image.setRGB(0, 0, width, height, out, 0, width);
+        return image;
+    }
+
+    private int tileCount() {
+        return (height + TILE_ROWS - 1) / TILE_ROWS;
+    }
+
+    private int tileEnd(int tile) {
+        return Math.min((tile + 1) * TILE_ROWS, height) * width;
+    }
+
+    private long countTile(int tile, int channelTolerance) {
+        long count = 0;
+        int end = tileEnd(tile);
+        for (int i = tile * TILE_ROWS * width; i < end; i++) {
+            if (isDifferent(expected[i], actual[i], channelTolerance)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static boolean isDifferent(int a, int b, int tolerance) {
+        if (a == b) {
+            return false;
+        }
+        return Math.abs(((a >> 16) & 0xFF) - ((b >> 16) & 0xFF)) > tolerance
+            || Math.abs(((a >> 8) & 0xFF) - ((b >> 8) & 0xFF)) > tolerance
+            || Math.abs((a & 0xFF) - (b & 0xFF)) > tolerance;
+    }
+
+    private static int[] pixels(BufferedImage image) {
+        int w = image.getWidth();
+        int h = image.getHeight();
+        return image.getRGB(0, 0, w, h, null, 0, w);
+    }
+}
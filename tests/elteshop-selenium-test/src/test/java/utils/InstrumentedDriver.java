@@ -0,0 +1,192 @@
+package utils;
+
+import org.openqa.selenium.Alert;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.WrapsDriver;
+import org.openqa.selenium.WrapsElement;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * WebDriver wrapper that times and counts every WebDriver command
+ * Commands are reported to the running test's TestContext and attributed to the
+ * page-object step that issued them. Elements, navigation, options, window and
+ * target locator objects returned by the driver are wrapped as well.
+ */
+public final class InstrumentedDriver {
+    // Wrapped return types (everything else is returned as is)
+    private static final Set<Class<?>> WRAPPED_TYPES = new HashSet<>(Arrays.<Class<?>>asList(
+        WebElement.class, WebDriver.Navigation.class, WebDriver.Options.class,
+        WebDriver.TargetLocator.class, WebDriver.Timeouts.class, WebDriver.Window.class, Alert.class));
+    // Methods answered locally by the client, they do not send a command to the server
+    private static final Set<String> LOCAL_METHODS = new HashSet<>(Arrays.asList(
+        "manage", "navigate", "switchTo", "window", "timeouts", "ime", "logs",
+        "getId", "getSessionId", "getCapabilities", "getCommandExecutor", "getErrorHandler",
+        "getFileDetector", "setFileDetector", "getKeyboard", "getMouse", "setLogLevel", "getCoordinates"));
+
+    private InstrumentedDriver() {
+    }
+
+    /**
+     * Wrap driver
+     * @param driver Driver to instrument
+     * @return Instrumented driver implementing the same interfaces
+     */
+    public static WebDriver wrap(WebDriver driver) {
+        Handler handler = new Handler(driver, null);
+        WebDriver proxy = (WebDriver) newProxy(driver, handler, WrapsDriver.class);
+        handler.root = proxy;
+        return proxy;
+    }
+
+    /**
+     * Get the driver behind an instrumented driver
+     * @param driver Possibly instrumented driver
+     * @return Underlying driver
+     */
+    public static WebDriver unwrap(WebDriver driver) {
+        WebDriver current = driver;
+        while (current instanceof WrapsDriver && isInstrumented(current)) {
+            current = ((WrapsDriver) current).getWrappedDriver();
+        }
+        return current;
+    }
+
+    private static boolean isInstrumented(Object object) {
+        return object != null && Proxy.isProxyClass(object.getClass())
+            && Proxy.getInvocationHandler(object) instanceof Handler;
+    }
+
+    private static Object newProxy(Object target, Handler handler, Class<?> extraInterface) {
+        Set<Class<?>> interfaces = new LinkedHashSet<>();
+        for (Class<?> type = target.getClass(); type != null; type = type.getSuperclass()) {
+            collectInterfaces(type, interfaces);
+        }
+        interfaces.add(extraInterface);
+        return Proxy.newProxyInstance(InstrumentedDriver.class.getClassLoader(),
+            interfaces.toArray(new Class<?>[0]), handler);
+    }
+
+    private static void collectInterfaces(Class<?> type, Set<Class<?>> interfaces) {
+        for (Class<?> candidate : type.getInterfaces()) {
+            if (interfaces.add(candidate)) {
+                collectInterfaces(candidate, interfaces);
+            }
+        }
+    }
+
+    private static Object unwrapArgument(Object argument) {
+        if (isInstrumented(argument)) {
+            return ((Handler) Proxy.getInvocationHandler(argument)).target;
+        }
+        if (argument instanceof Object[]) {
+            Object[] array = ((Object[]) argument).clone();
+            for (int i = 0; i < array.length; i++) {
+                array[i] = unwrapArgument(array[i]);
+            }
+            return array;
+        }
+        if (argument instanceof List) {
+            List<Object> list = new ArrayList<>();
+            for (Object item : (List<?>) argument) {
+                list.add(unwrapArgument(item));
+            }
+            return list;
+        }
+        return argument;
+    }
+
+    private static final class Handler implements InvocationHandler {
+        private final Object target;
+        private WebDriver root;
+
+        private Handler(Object target, WebDriver root) {
+            this.target = target;
+            this.root = root;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (method.getDeclaringClass() == Object.class) {
+                if (name.equals("equals")) {
+                    return target.equals(unwrapArgument(args[0]));
+                }
+                return method.invoke(target, args);
+            }
+            if (name.equals("getWrappedDriver")) {
+                // The driver proxy unwraps to the real driver, elements point back to the proxy
+                return target instanceof WebDriver ? target : root;
+            }
+            if (name.equals("getWrappedElement")) {
+                return target;
+            }
+
+            Object[] realArgs = args == null ? null : (Object[]) unwrapArgument(args);
+            boolean command = !LOCAL_METHODS.contains(name);
+            long token = -1L;
+            if (command) {
+                TestContext.recordTraffic(1, 0);
+                token = TestContext.beginTiming();
+            }
+            try {
+                return wrapResult(method, method.invoke(target, realArgs));
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            } finally {
+                if (command) {
+                    TestContext.endTiming(token, pageLoadUrl(name, realArgs));
+                }
+            }
+        }
+
+        private String pageLoadUrl(String name, Object[] args) {
+            boolean navigation = (name.equals("get") && target instanceof WebDriver)
+                || (name.equals("to") && target instanceof WebDriver.Navigation);
+            if (!navigation || args == null || args.length != 1) {
+                return null;
+            }
+            return args[0] instanceof URL ? ((URL) args[0]).toExternalForm() : String.valueOf(args[0]);
+        }
+
+        private Object wrapResult(Method method, Object result) {
+            if (result == null) {
+                return null;
+            }
+            Class<?> returnType = method.getReturnType();
+            if (returnType == WebDriver.class) {
+                return root;
+            }
+            if (returnType == List.class && !((List<?>) result).isEmpty()
+                    && ((List<?>) result).get(0) instanceof WebElement) {
+                List<Object> wrapped = new ArrayList<>();
+                for (Object element : (List<?>) result) {
+                    wrapped.add(wrapObject(element, WebElement.class));
+                }
+                return wrapped;
+            }
+            if (WRAPPED_TYPES.contains(returnType)) {
+                return wrapObject(result, returnType);
+            }
+            return result;
+        }
+
+        private Object wrapObject(Object object, Class<?> type) {
+            if (isInstrumented(object)) {
+                return object;
+            }
+            Class<?> extraInterface = type == WebElement.class ? WrapsElement.class : type;
+            return newProxy(object, new Handler(object, root), extraInterface);
+        }
+    }
+}
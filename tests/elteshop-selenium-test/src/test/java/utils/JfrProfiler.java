@@ -0,0 +1,238 @@
+package utils;
+
+import org.junit.rules.TestRule;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JUnit rule that profiles the test JVM with Java Flight Recorder
+ * Records allocations, GC pauses and CPU samples around each test and writes a summary
+ * per test to build/reports/jfr/&lt;test&gt;.txt: allocated bytes and CPU samples by the
+ * first frame outside the JDK, and GC pause totals. The .jfr file itself is only kept
+ * when the test exceeds one of the thresholds.
+ * The JFR API is used through reflection, so the suite still compiles and runs on JDKs
+ * without jdk.jfr (profiling is then skipped with a message).
+ *
+ * Settings (-Delteshop.jfr.*):
+ * - jfr=false                 set to true to profile every test
+ * - jfr.keepAllocatedMb=256   keep the recording when the JVM allocated more during the test
+ * - jfr.keepGcPauseMs=100     keep the recording when GC paused longer in total
+ * - jfr.keepCpuSamples=500    keep the recording when more CPU samples were taken (20 ms period)
+ * - jfr.topFrames=10          frames listed per section of the summary
+ */
+public class JfrProfiler implements TestRule {
+    private static final File REPORT_DIR = new File(TestConfig.getString("jfr.reportDir", "build/reports/jfr"));
+    private static final String[] JDK_PACKAGES = {"java.", "javax.", "jdk.", "sun.", "com.sun."};
+    private static volatile boolean unavailable;
+
+    @Override
+    public Statement apply(final Statement base, final Description description) {
+        if (!TestConfig.getBoolean("jfr", false) || unavailable) {
+            return base;
+        }
+        return new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+                String testName = description.getTestClass().getSimpleName() + "." + description.getMethodName();
+                Object recording = startRecording();
+                try {
+                    base.evaluate();
+                } finally {
+                    if (recording != null) {
+                        finishRecording(recording, testName);
+                    }
+                }
+            }
+        };
+    }
+
+    private static Object startRecording() {
+        try {
+            Object recording = Class.forName("jdk.jfr.Recording").getConstructor().newInstance();
+            for (String event : new String[] {"jdk.ObjectAllocationInNewTLAB", "jdk.ObjectAllocationOutsideTLAB"}) {
+                call(call(recording, "enable", event), "withStackTrace");
+            }
+            call(call(call(recording, "enable", "jdk.ExecutionSample"), "withPeriod", Duration.ofMillis(20)), "withStackTrace");
+            call(recording, "enable", "jdk.GarbageCollection");
+            call(recording, "start");
+            return recording;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            unavailable = true;
+            System.err.println("JFR profiling not available on this JVM, continuing without it: " + e);
+            return null;
+        }
+    }
+
+    private static void finishRecording(Object recording, String testName) {
+        File jfrFile = new File(REPORT_DIR, testName + ".jfr");
+        try {
+            REPORT_DIR.mkdirs();
+            call(recording, "stop");
+            call(recording, "dump", jfrFile.toPath());
+            Summary summary = summarize(jfrFile.toPath());
+            boolean keep = summary.allocatedBytes > TestConfig.getInt("jfr.keepAllocatedMb", 256) * 1024L * 1024L
+                || summary.gcPauseNanos > TestConfig.getInt("jfr.keepGcPauseMs", 100) * 1000000L
+                || summary.cpuSamples > TestConfig.getInt("jfr.keepCpuSamples", 500);
+            summary.write(new File(REPORT_DIR, testName + ".txt"), testName, keep ? jfrFile : null);
+            System.out.println(String.format("JFR %s: allocated %.1f MB, GC %d pause(s) %.1f ms, %d CPU sample(s)%s",
+                testName, summary.allocatedBytes / 1048576.0, summary.gcCount, summary.gcPauseNanos / 1e6,
+                summary.cpuSamples, keep ? ", recording kept at " + jfrFile.getPath() : ""));
+            if (!keep) {
+                jfrFile.delete();
+            }
+        } catch (ReflectiveOperationException | RuntimeException | FileNotFoundException e) {
+            System.err.println("Could not summarize JFR recording of " + testName + ": " + e);
+        } finally {
+            try {
+                call(recording, "close");
+            } catch (ReflectiveOperationException e) {
+                System.err.println("Could not close JFR recording: " + e);
+            }
+        }
+    }
+
+    private static Summary summarize(Path jfrFile) throws ReflectiveOperationException {
+        Summary summary = new Summary();
+        Method readAllEvents = Class.forName("jdk.jfr.consumer.RecordingFile").getMethod("readAllEvents", Path.class);
+        for (Object event : (List<?>) readAllEvents.invoke(null, jfrFile)) {
+            String type = (String) call(call(event, "getEventType"), "getName");
+            switch (type) {
+                case "jdk.ObjectAllocationInNewTLAB":
+                    summary.allocation(firstAppFrame(event), (Long) call(event, "getLong", "tlabSize"));
+                    break;
+                case "jdk.ObjectAllocationOutsideTLAB":
+                    summary.allocation(firstAppFrame(event), (Long) call(event, "getLong", "allocationSize"));
+                    break;
+                case "jdk.ExecutionSample":
+                    summary.cpuSamples++;
+                    summary.cpuByFrame.merge(firstAppFrame(event), 1L, Long::sum);
+                    break;
+                case "jdk.GarbageCollection":
+                    summary.gcCount++;
+                    summary.gcPauseNanos += ((Duration) call(event, "getDuration", "sumOfPauses")).toNanos();
+                    summary.gcLongestPauseNanos = Math.max(summary.gcLongestPauseNanos,
+                        ((Duration) call(event, "getDuration", "longestPause")).toNanos());
+                    break;
+                default:
+                    break;
+            }
+        }
+        return summary;
+    }
+
+    /**
+     * Find the frame the cost belongs to: the first one outside the JDK, e.g. the page
+     * object or Selenium method that allocated
+     */
+    private static String firstAppFrame(Object event) throws ReflectiveOperationException {
+        Object stackTrace = call(event, "getStackTrace");
+        if (stackTrace == null) {
+            return "(no stack trace)";
+        }
+        String first = null;
+        for (Object frame : (List<?>) call(stackTrace, "getFrames")) {
+            Object method = call(frame, "getMethod");
+            String name = call(call(method, "getType"), "getName") + "." + call(method, "getName");
+            if (first == null) {
+                first = name;
+            }
+            if (!isJdkFrame(name)) {
+                return name;
+            }
+        }
+        return first == null ? "(empty stack trace)" : first;
+    }
+
+    private static boolean isJdkFrame(String frame) {
+        for (String prefix : JDK_PACKAGES) {
+            if (frame.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Invoke a public method through the closest public class declaring it
+     * (JFR hands out instances of internal subclasses)
+     */
+    private static Object call(Object target, String name, Object... args) throws ReflectiveOperationException {
+        for (Class<?> type = target.getClass(); type != null; type = type.getSuperclass()) {
+            if (!Modifier.isPublic(type.getModifiers())) {
+                continue;
+            }
+            for (Method method : type.getMethods()) {
+                if (method.getName().equals(name) && method.getParameterCount() == args.length
+                        && Modifier.isPublic(method.getDeclaringClass().getModifiers()) && accepts(method, args)) {
+                    return method.invoke(target, args);
+                }
+            }
+        }
+        throw new NoSuchMethodException(target.getClass().getName() + "." + name);
+    }
+
+    private static boolean accepts(Method method, Object[] args) {
+        Class<?>[] types = method.getParameterTypes();
+        for (int i = 0; i < args.length; i++) {
+            if (!types[i].isPrimitive() && !types[i].isInstance(args[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Aggregated recording of one test
+     */
+    private static final class Summary {
+        long allocatedBytes;
+        long cpuSamples;
+        int gcCount;
+        long gcPauseNanos;
+        long gcLongestPauseNanos;
+        final Map<String, Long> allocationByFrame = new HashMap<>();
+        final Map<String, Long> cpuByFrame = new HashMap<>();
+
+        void allocation(String frame, long bytes) {
+            allocatedBytes += bytes;
+            allocationByFrame.merge(frame, bytes, Long::sum);
+        }
+
+        void write(File file, String testName, File keptRecording) throws FileNotFoundException {
+            int topFrames = TestConfig.getInt("jfr.topFrames", 10);
+            try (PrintWriter writer = new PrintWriter(file)) {
+                writer.println("JFR summary of " + testName);
+                writer.println(String.format("GC: %d collection(s), total pause %.1f ms, longest pause %.1f ms",
+                    gcCount, gcPauseNanos / 1e6, gcLongestPauseNanos / 1e6));
+                writer.println(String.format("Allocation hot spots (%.1f MB, estimated from TLAB allocations):", allocatedBytes / 1048576.0));
+                for (Map.Entry<String, Long> entry : top(allocationByFrame, topFrames)) {
+                    writer.println(String.format("  %10.1f MB  %s", entry.getValue() / 1048576.0, entry.getKey()));
+                }
+                writer.println("CPU samples (" + cpuSamples + " total):");
+                for (Map.Entry<String, Long> entry : top(cpuByFrame, topFrames)) {
+                    writer.println(String.format("  %10d     %s", entry.getValue(), entry.getKey()));
+                }
+                if (keptRecording != null) {
+                    writer.println("Full recording: " + keptRecording.getPath());
+                }
+            }
+        }
+
+        private static List<Map.Entry<String, Long>> top(Map<String, Long> totals, int limit) {
+            List<Map.Entry<String, Long>> entries = new ArrayList<>(totals.entrySet());
+            entries.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+            return entries.subList(0, Math.min(limit, entries.size()));
+        }
+    }
+}
\ No newline at end of file
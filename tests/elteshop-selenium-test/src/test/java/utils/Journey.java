@@ -0,0 +1,29 @@
+package utils;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares the page a test starts on and whether it leaves the session untouched
+ * Used by JourneyRunner and JourneyRule in journey mode (-Delteshop.journey=true)
+ * to order tests and skip navigations to a page the shared session is already on.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Journey {
+
+    /**
+     * @return URL of the page the test opens first (use the page object's URL constant)
+     */
+    String startsAt();
+
+    /**
+     * Read-only tests stay on the start page and change nothing (no clicks that navigate,
+     * no data saved, no successful login), so the next test starting there can reuse the
+     * session as is. A session that is not on the start page when the test ends is reset anyway.
+     * @return Whether the test is read-only
+     */
+    boolean readOnly() default false;
+}
@@ -0,0 +1,58 @@
+package utils;
+
+import org.junit.rules.TestRule;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import java.util.function.Supplier;
+
+/**
+ * JUnit rule that records the journey state of the session after each test
+ * In journey mode a test that may have changed the session (not read-only, failed,
+ * or left its start page) resets it: cookies, localStorage and sessionStorage are cleared
+ * and the next test navigates again.
+ */
+public class JourneyRule implements TestRule {
+    // Web storage is per origin, so this clears the shop's storage while the session is on a shop page
+    private static final String CLEAR_STORAGE_SCRIPT =
+        "try { window.localStorage.clear(); window.sessionStorage.clear(); } catch (e) { }";
+
+    private final Supplier<WebDriver> driverSupplier;
+
+    /**
+     * Constructor
+     * @param driverSupplier Supplies the test's driver once it has been created
+     */
+    public JourneyRule(Supplier<WebDriver> driverSupplier) {
+        this.driverSupplier = driverSupplier;
+    }
+
+    @Override
+    public Statement apply(final Statement base, final Description description) {
+        if (!JourneyState.isEnabled()) {
+            return base;
+        }
+        return new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+                boolean passed = false;
+                try {
+                    base.evaluate();
+                    passed = true;
+                } finally {
+                    WebDriver driver = driverSupplier.get();
+                    if (driver != null && JourneyState.testFinished(driver, description.getAnnotation(Journey.class), passed)) {
+                        try {
+                            driver.manage().deleteAllCookies();
+                            ((JavascriptExecutor) driver).executeScript(CLEAR_STORAGE_SCRIPT);
+                            System.out.println("Journey mode: session reset after " + description.getMethodName());
+                        } catch (RuntimeException e) {
+                            System.err.println("Journey mode: could not reset session: " + e.getMessage());
+                        }
+                    }
+                }
+            }
+        };
+    }
+}
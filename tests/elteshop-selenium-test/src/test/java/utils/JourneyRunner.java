@@ -0,0 +1,50 @@
+package utils;
+
+import org.junit.runners.BlockJUnit4ClassRunner;
+import org.junit.runners.model.FrameworkMethod;
+import org.junit.runners.model.InitializationError;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * JUnit runner that orders tests by journey in journey mode
+ * Tests are grouped by the page they start on, read-only tests first in each group,
+ * so that a session left on a page by a read-only test is reused by the next one.
+ * Tests without @Journey run last. Without journey mode the default order is kept.
+ */
+public class JourneyRunner extends BlockJUnit4ClassRunner {
+
+    /**
+     * Constructor
+     * @param testClass Test class
+     * @throws InitializationError if the test class is malformed
+     */
+    public JourneyRunner(Class<?> testClass) throws InitializationError {
+        super(testClass);
+    }
+
+    @Override
+    protected List<FrameworkMethod> computeTestMethods() {
+        List<FrameworkMethod> methods = new ArrayList<>(super.computeTestMethods());
+        if (!JourneyState.isEnabled()) {
+            return methods;
+        }
+        final List<String> startPages = new ArrayList<>();
+        for (FrameworkMethod method : methods) {
+            Journey journey = method.getAnnotation(Journey.class);
+            if (journey != null && !startPages.contains(journey.startsAt())) {
+                startPages.add(journey.startsAt());
+            }
+        }
+        // Stable sort: group by start page (in order of first appearance), read-only tests first
+        methods.sort(Comparator.comparingInt((FrameworkMethod method) -> {
+            Journey journey = method.getAnnotation(Journey.class);
+            return journey == null ? Integer.MAX_VALUE : startPages.indexOf(journey.startsAt());
+        }).thenComparing(method -> {
+            Journey journey = method.getAnnotation(Journey.class);
+            return journey == null || !journey.readOnly();
+        }));
+        return methods;
+    }
+}
@@ -0,0 +1,63 @@
+package utils;
+
+import org.openqa.selenium.WebDriver;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Navigation state of browser sessions in journey mode
+ * Remembers, per session, a page that a read-only test left the session on. The next
+ * navigation to exactly that page is skipped; any other navigation clears the state.
+ */
+public final class JourneyState {
+    private static final boolean ENABLED = TestConfig.getBoolean("journey", false);
+
+    // Session -> URL the session is known to be on with no side effects since
+    private static final Map<WebDriver, String> REUSABLE_URLS = new WeakHashMap<>();
+    // Session -> URL of the last navigation made through a page object
+    private static final Map<WebDriver, String> LAST_URLS = new WeakHashMap<>();
+
+    private JourneyState() {
+    }
+
+    /**
+     * @return Whether journey mode is on (-Delteshop.journey=true)
+     */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Register a navigation and decide whether it can be skipped
+     * @param driver Session
+     * @param url Target URL
+     * @return true if the session is already on the URL and the navigation can be skipped
+     */
+    public static synchronized boolean canSkipNavigation(WebDriver driver, String url) {
+        if (!ENABLED) {
+            return false;
+        }
+        String reusable = REUSABLE_URLS.remove(driver);
+        LAST_URLS.put(driver, url);
+        return url.equals(reusable);
+    }
+
+    /**
+     * Record the end of a test
+     * @param driver Session the test used
+     * @param journey Journey declaration of the test, or null
+     * @param passed Whether the test passed
+     * @return Whether the session must be reset (the test may have changed its state)
+     */
+    public static synchronized boolean testFinished(WebDriver driver, Journey journey, boolean passed) {
+        String lastUrl = LAST_URLS.remove(driver);
+        REUSABLE_URLS.remove(driver);
+        // The browser must still be on the page, a read-only test may have followed a link or submitted a form
+        if (journey != null && journey.readOnly() && passed && journey.startsAt().equals(lastUrl)
+                && lastUrl.equals(driver.getCurrentUrl())) {
+            REUSABLE_URLS.put(driver, lastUrl);
+            return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,115 @@
+package utils;
+
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.remote.Command;
+import org.openqa.selenium.remote.CommandInfo;
+import org.openqa.selenium.remote.HttpCommandExecutor;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.openqa.selenium.remote.Response;
+import org.openqa.selenium.remote.http.HttpClient;
+import org.openqa.selenium.remote.http.HttpMethod;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Emulated network conditions for the browser
+ * Selected with -Delteshop.network=<name>; the profile is applied to every new session
+ * through ChromeDriver's network conditions command (added latency per request and
+ * download/upload throughput caps). Single values can be overridden with
+ * -Delteshop.network.latencyMs, -Delteshop.network.downloadKbps and -Delteshop.network.uploadKbps.
+ */
+public enum NetworkProfile {
+    NONE("none", 0, 0, 0),
+    FAST_4G("4g", 70, 9000, 9000),
+    REGULAR_3G("3g", 300, 1600, 768),
+    SLOW_3G("slow-3g", 2000, 400, 400),
+    CROSS_CONTINENT("cross-continent", 250, 20000, 10000);
+
+    private static final String SET_NETWORK_CONDITIONS = "setNetworkConditions";
+
+    private final String profileName;
+    private final int latencyMs;
+    private final int downloadKbps;
+    private final int uploadKbps;
+
+    NetworkProfile(String profileName, int latencyMs, int downloadKbps, int uploadKbps) {
+        this.profileName = profileName;
+        this.latencyMs = latencyMs;
+        this.downloadKbps = downloadKbps;
+        this.uploadKbps = uploadKbps;
+    }
+
+    /**
+     * @return Profile selected with -Delteshop.network (default none)
+     */
+    public static NetworkProfile current() {
+        String name = TestConfig.getString("network", NONE.profileName);
+        for (NetworkProfile profile : values()) {
+            if (profile.profileName.equalsIgnoreCase(name)) {
+                return profile;
+            }
+        }
+        throw new IllegalArgumentException("Unknown network profile '" + name + "'");
+    }
+
+    /**
+     * @return Profile name as used on the command line
+     */
+    public String getProfileName() {
+        return profileName;
+    }
+
+    /**
+     * Create command executor that also knows the network conditions command
+     * The executor counts the bytes it exchanges with the Grid (see CountingHttpClientFactory).
+     * @param gridUrl Grid URL
+     * @return Command executor for a RemoteWebDriver
+     */
+    public static HttpCommandExecutor commandExecutor(URL gridUrl) {
+        return new HttpCommandExecutor(networkCommands(), gridUrl,
+            new CountingHttpClientFactory(HttpClient.Factory.createDefault()));
+    }
+
+    /**
+     * @return Additional commands to register with the HttpCommandExecutor
+     */
+    static Map<String, CommandInfo> networkCommands() {
+        return Collections.singletonMap(SET_NETWORK_CONDITIONS,
+            new CommandInfo("/session/:sessionId/chromium/network_conditions", HttpMethod.POST));
+    }
+
+    /**
+     * Apply the profile to a session
+     * Does nothing for the "none" profile unless single values were overridden.
+     * @param driver Session created with commandExecutor(URL)
+     */
+    public void apply(RemoteWebDriver driver) {
+        int latency = TestConfig.getInt("network.latencyMs", latencyMs);
+        int download = TestConfig.getInt("network.downloadKbps", downloadKbps);
+        int upload = TestConfig.getInt("network.uploadKbps", uploadKbps);
+        if (latency == 0 && download == 0 && upload == 0) {
+            return;
+        }
+
+        Map<String, Object> conditions = new HashMap<>();
+        conditions.put("offline", false);
+        conditions.put("latency", latency);
+        // ChromeDriver expects bytes per second; 0 means no limit
+        conditions.put("download_throughput", download * 1000 / 8);
+        conditions.put("upload_throughput", upload * 1000 / 8);
+        try {
+            Response response = driver.getCommandExecutor().execute(new Command(driver.getSessionId(),
+                SET_NETWORK_CONDITIONS, Collections.singletonMap("network_conditions", conditions)));
+            if (response.getStatus() != null && response.getStatus() != 0) {
+                throw new WebDriverException("Could not set network conditions: " + response.getValue());
+            }
+        } catch (IOException e) {
+            throw new WebDriverException("Could not set network conditions", e);
+        }
+        System.out.println("Network profile '" + profileName + "': latency " + latency + " ms, download "
+            + download + " kbit/s, upload " + upload + " kbit/s");
+    }
+}
@@ -0,0 +1,211 @@
+package utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only performance history store
+ * Every run appends one binary record per test, page-object step and page load
+ * to perf-history/history.bin (no external database needed). Each record is framed
+ * as length (int) and CRC32 (int) of its body; the body is kind (byte), run id (long),
+ * name (UTF) and duration in microseconds (long). After a damaged or partly written
+ * record the reader scans forward to the next frame whose length and checksum are
+ * valid, so the records behind it are still read; a truncated last record is ignored. Test JVMs append
+ * under a file lock, so parallel forks do not interleave their records.
+ *
+ * The run id is -Delteshop.runId; build.gradle passes one id (the build start in epoch
+ * millis) to all test JVMs of a build, so forks and variant runs form one run.
+ */
+public final class PerformanceHistory {
+    public static final byte KIND_TEST = 0;
+    public static final byte KIND_STEP = 1;
+    public static final byte KIND_PAGE_LOAD = 2;
+
+    // Bodies shorter or longer than this cannot be valid (the name is at most 64 KB)
+    private static final int MIN_RECORD_LENGTH = 1 + 8 + 2 + 8;
+    private static final int MAX_RECORD_LENGTH = MIN_RECORD_LENGTH + 65535;
+    private static final int HEADER_LENGTH = 8;
+    private static final long RUN_ID = runId();
+
+    private PerformanceHistory() {
+    }
+
+    /**
+     * One stored measurement
+     */
+    public static final class Record {
+        public final byte kind;
+        public final long runId;
+        public final String name;
+        public final long micros;
+
+        Record(byte kind, long runId, String name, long micros) {
+            this.kind = kind;
+            this.runId = runId;
+            this.name = name;
+            this.micros = micros;
+        }
+    }
+
+    /**
+     * @return History file location
+     */
+    public static File historyFile() {
+        return new File(TestConfig.getString("perf.historyDir", "perf-history"), "history.bin");
+    }
+
+    /**
+     * Append measurements of a finished test
+     * @param context Context of the finished test
+     * @param testNanos Test duration in nanoseconds
+     */
+    public static synchronized void append(TestContext context, long testNanos) {
+        File file = historyFile();
+        file.getParentFile().mkdirs();
+        ByteArrayOutputStream records = new ByteArrayOutputStream();
+        try {
+            DataOutputStream out = new DataOutputStream(records);
+            write(out, KIND_TEST, context.getTestName(), testNanos);
+            for (Map.Entry<String, long[]> step : context.getSteps().entrySet()) {
+                write(out, KIND_STEP, step.getKey(), step.getValue()[0]);
+            }
+            for (Map.Entry<String, long[]> pageLoad : context.getPageLoads().entrySet()) {
+                long[] total = pageLoad.getValue();
+                // Store the mean load time of the URL within this test
+                write(out, KIND_PAGE_LOAD, pageLoad.getKey(), total[0] / total[1]);
+            }
+        } catch (IOException e) {
+            System.err.println("Could not encode performance history records: " + e.getMessage());
+            return;
+        }
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            // Other test JVMs wait, so the records of one test stay together
+            FileLock lock = out.getChannel().lock();
+            try {
+                out.write(records.toByteArray());
+            } finally {
+                lock.release();
+            }
+        } catch (IOException e) {
+            System.err.println("Could not append performance history to " + file.getPath() + ": " + e.getMessage());
+        }
+    }
+
+    private static void write(DataOutputStream out, byte kind, String name, long nanos) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        DataOutputStream bodyOut = new DataOutputStream(body);
+        bodyOut.writeByte(kind);
+        bodyOut.writeLong(RUN_ID);
+        // Runs under other conditions (e.g. network profiles) get their own names and baselines
+        bodyOut.writeUTF(RunVariant.tag(name));
+        bodyOut.writeLong(nanos / 1000);
+        byte[] bytes = body.toByteArray();
+        out.writeInt(bytes.length);
+        out.writeInt(checksum(bytes));
+        out.write(bytes);
+    }
+
+    /**
+     * Read all stored records
+     * @param file History file
+     * @return Records in append order (empty when the file does not exist)
+     */
+    public static List<Record> readAll(File file) {
+        List<Record> records = new ArrayList<>();
+        if (!file.exists()) {
+            return records;
+        }
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(file.toPath());
+        } catch (IOException e) {
+            System.err.println("Could not read performance history " + file.getPath() + ": " + e.getMessage());
+            return records;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int skippedRanges = 0;
+        long skippedBytes = 0;
+        int damagedStart = -1;
+        int offset = 0;
+        while (offset + HEADER_LENGTH <= bytes.length) {
+            Record record = readFrame(buffer, offset);
+            if (record == null) {
+                // Lost the framing, try the next byte
+                if (damagedStart < 0) {
+                    damagedStart = offset;
+                }
+                offset++;
+                continue;
+            }
+            if (damagedStart >= 0) {
+                skippedRanges++;
+                skippedBytes += offset - damagedStart;
+                damagedStart = -1;
+            }
+            records.add(record);
+            offset += HEADER_LENGTH + buffer.getInt(offset);
+        }
+        // Bytes after the last valid record are a record cut short by a killed test JVM
+        if (skippedRanges > 0) {
+            System.err.println("Skipped " + skippedBytes + " damaged byte(s) in " + skippedRanges
+                + " place(s) of performance history " + file.getPath());
+        }
+        return records;
+    }
+
+    /**
+     * Decode the frame at an offset
+     * @return Record, or null if no valid frame starts there
+     */
+    private static Record readFrame(ByteBuffer buffer, int offset) {
+        int length = buffer.getInt(offset);
+        if (length < MIN_RECORD_LENGTH || length > MAX_RECORD_LENGTH
+                || length > buffer.capacity() - offset - HEADER_LENGTH) {
+            return null;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), offset + HEADER_LENGTH, length);
+        if ((int) crc.getValue() != buffer.getInt(offset + 4)) {
+            return null;
+        }
+        try {
+            DataInputStream body = new DataInputStream(
+                new ByteArrayInputStream(buffer.array(), offset + HEADER_LENGTH, length));
+            byte kind = body.readByte();
+            long runId = body.readLong();
+            String name = body.readUTF();
+            long micros = body.readLong();
+            return body.available() == 0 ? new Record(kind, runId, name, micros) : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static int checksum(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length);
+        return (int) crc.getValue();
+    }
+
+    private static long runId() {
+        String runId = TestConfig.getString("runId", "");
+        try {
+            return runId.isEmpty() ? System.currentTimeMillis() : Long.parseLong(runId);
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid elteshop.runId '" + runId + "', using the JVM start time");
+            return System.currentTimeMillis();
+        }
+    }
+}
\ No newline at end of file
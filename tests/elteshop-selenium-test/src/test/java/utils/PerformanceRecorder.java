@@ -0,0 +1,36 @@
+package utils;
+
+import org.junit.rules.TestRule;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+
+/**
+ * JUnit rule that measures each test
+ * Starts a TestContext for the test and, when the test passes, appends the test
+ * duration and its step and page load timings to the PerformanceHistory.
+ * Disable with -Delteshop.perf.history=false.
+ */
+public class PerformanceRecorder implements TestRule {
+
+    @Override
+    public Statement apply(final Statement base, final Description description) {
+        return new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+                TestContext context = TestContext.start(description.getTestClass().getSimpleName() + "." + description.getMethodName());
+                boolean passed = false;
+                try {
+                    base.evaluate();
+                    passed = true;
+                } finally {
+                    long elapsed = context.getElapsedNanos();
+                    TestContext.finish();
+                    // Failed tests are left out so that they do not distort the baseline
+                    if (passed && TestConfig.getBoolean("perf.history", true)) {
+                        PerformanceHistory.append(context, elapsed);
+                    }
+                }
+            }
+        };
+    }
+}
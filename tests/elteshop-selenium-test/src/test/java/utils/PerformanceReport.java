@@ -0,0 +1,208 @@
+package utils;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Slowdown report over the performance history
+ * Compares the latest run with a rolling baseline of the previous runs and flags
+ * tests, page-object steps and shop page loads that became significantly slower.
+ * Each variant (e.g. network profile) is compared separately: its latest run against
+ * the previous runs made under the same variant.
+ * A measurement is flagged when it is both above the baseline median by the
+ * relative margin and more than the z-score limit of robust deviations (MAD) away.
+ * When the history holds runs under several variants (e.g. network profiles), the latest
+ * run of each variant is also shown side by side.
+ * Run with "gradle perfReport"; the report is printed and written to
+ * build/reports/perf/slowdowns.txt.
+ *
+ * Settings (-Delteshop.perf.*):
+ * - perf.baselineRuns=10   number of previous runs in the baseline
+ * - perf.minRuns=3         baseline runs needed before anything is flagged
+ * - perf.minIncrease=0.2   relative slowdown needed (0.2 = 20% slower)
+ * - perf.zScore=3          robust z-score needed
+ */
+public final class PerformanceReport {
+    // Smallest spread used for the z-score, avoids flagging noise when all baseline runs were equal
+    private static final double MIN_SPREAD_MICROS = 1000;
+
+    private PerformanceReport() {
+    }
+
+    /**
+     * Print the report and write it to build/reports/perf/slowdowns.txt
+     * @param args Not used
+     * @throws FileNotFoundException if the report file cannot be written
+     */
+    public static void main(String[] args) throws FileNotFoundException {
+        List<String> lines = buildReport(PerformanceHistory.readAll(PerformanceHistory.historyFile()));
+        File reportFile = new File(TestConfig.getString("perf.reportDir", "build/reports/perf"), "slowdowns.txt");
+        reportFile.getParentFile().mkdirs();
+        try (PrintWriter writer = new PrintWriter(reportFile)) {
+            for (String line : lines) {
+                System.out.println(line);
+                writer.println(line);
+            }
+        }
+    }
+
+    /**
+     * Build report lines
+     * @param records All history records
+     * @return Report lines
+     */
+    static List<String> buildReport(List<PerformanceHistory.Record> records) {
+        List<String> lines = new ArrayList<>();
+        // variant -> run ids that have records of the variant
+        Map<String, TreeSet<Long>> runsByVariant = new TreeMap<>();
+        for (PerformanceHistory.Record record : records) {
+            runsByVariant.computeIfAbsent(splitVariant(record.name)[1], variant -> new TreeSet<>()).add(record.runId);
+        }
+        if (runsByVariant.isEmpty()) {
+            lines.add("Performance history is empty, nothing to compare.");
+            return lines;
+        }
+
+        for (Map.Entry<String, TreeSet<Long>> variant : runsByVariant.entrySet()) {
+            TreeSet<Long> runs = variant.getValue();
+            long currentRun = runs.last();
+            List<Long> baselineRuns = new ArrayList<>(runs.headSet(currentRun, false).descendingSet());
+            baselineRuns = baselineRuns.subList(0, Math.min(baselineRuns.size(), TestConfig.getInt("perf.baselineRuns", 10)));
+            if (!lines.isEmpty()) {
+                lines.add("");
+            }
+            lines.add("Performance report for run " + currentRun + " against " + baselineRuns.size()
+                + " baseline run(s), variant " + variant.getKey());
+
+            lines.add("");
+            lines.add("== Suite: tests ==");
+            compare(records, PerformanceHistory.KIND_TEST, variant.getKey(), currentRun, baselineRuns, lines);
+            lines.add("");
+            lines.add("== Suite: page-object steps ==");
+            compare(records, PerformanceHistory.KIND_STEP, variant.getKey(), currentRun, baselineRuns, lines);
+            lines.add("");
+            lines.add("== Shop pages: page loads ==");
+            compare(records, PerformanceHistory.KIND_PAGE_LOAD, variant.getKey(), currentRun, baselineRuns, lines);
+        }
+
+        Map<String, Long> latestRunByVariant = latestRunByVariant(records);
+        if (latestRunByVariant.size() > 1) {
+            lines.add("");
+            lines.add("== Steps by variant (latest run of each variant, mean ms) ==");
+            compareVariants(records, PerformanceHistory.KIND_STEP, latestRunByVariant, lines);
+            lines.add("");
+            lines.add("== Page loads by variant (latest run of each variant, mean ms) ==");
+            compareVariants(records, PerformanceHistory.KIND_PAGE_LOAD, latestRunByVariant, lines);
+        }
+        return lines;
+    }
+
+    /**
+     * Split a stored name into base name and variant label
+     * @param name Stored name, e.g. "HomePage.open [net=3g]"
+     * @return {base name, variant label}; the label is "default" for untagged names
+     */
+    static String[] splitVariant(String name) {
+        int start = name.lastIndexOf(" [");
+        if (start < 0 || !name.endsWith("]")) {
+            return new String[] {name, "default"};
+        }
+        return new String[] {name.substring(0, start), name.substring(start + 2, name.length() - 1)};
+    }
+
+    private static Map<String, Long> latestRunByVariant(List<PerformanceHistory.Record> records) {
+        Map<String, Long> latest = new TreeMap<>();
+        for (PerformanceHistory.Record record : records) {
+            latest.merge(splitVariant(record.name)[1], record.runId, Math::max);
+        }
+        return latest;
+    }
+
+    private static void compareVariants(List<PerformanceHistory.Record> records, byte kind,
+                                        Map<String, Long> latestRunByVariant, List<String> lines) {
+        // base name -> variant -> {sum, count}
+        Map<String, Map<String, double[]>> table = new TreeMap<>();
+        for (PerformanceHistory.Record record : records) {
+            String[] parts = splitVariant(record.name);
+            if (record.kind != kind || record.runId != latestRunByVariant.get(parts[1])) {
+                continue;
+            }
+            double[] total = table.computeIfAbsent(parts[0], name -> new TreeMap<>())
+                .computeIfAbsent(parts[1], variant -> new double[2]);
+            total[0] += record.micros;
+            total[1]++;
+        }
+        StringBuilder header = new StringBuilder(String.format("%-60s", ""));
+        for (String variant : latestRunByVariant.keySet()) {
+            header.append(String.format(" %18s", variant));
+        }
+        lines.add(header.toString());
+        for (Map.Entry<String, Map<String, double[]>> row : table.entrySet()) {
+            StringBuilder line = new StringBuilder(String.format("%-60s", row.getKey()));
+            for (String variant : latestRunByVariant.keySet()) {
+                double[] total = row.getValue().get(variant);
+                line.append(total == null ? String.format(" %18s", "-") : String.format(" %18.1f", total[0] / total[1] / 1000));
+            }
+            lines.add(line.toString());
+        }
+    }
+
+    private static void compare(List<PerformanceHistory.Record> records, byte kind, String variant, long currentRun,
+                                List<Long> baselineRuns, List<String> lines) {
+        // name -> run id -> {sum, count}; a name can occur several times per run (e.g. a step used by many tests)
+        Map<String, Map<Long, double[]>> byName = new TreeMap<>();
+        for (PerformanceHistory.Record record : records) {
+            if (record.kind != kind || !splitVariant(record.name)[1].equals(variant)
+                    || (record.runId != currentRun && !baselineRuns.contains(record.runId))) {
+                continue;
+            }
+            Map<Long, double[]> byRun = byName.computeIfAbsent(record.name, name -> new TreeMap<>());
+            double[] total = byRun.computeIfAbsent(record.runId, run -> new double[2]);
+            total[0] += record.micros;
+            total[1]++;
+        }
+
+        int minRuns = TestConfig.getInt("perf.minRuns", 3);
+        double minIncrease = TestConfig.getDouble("perf.minIncrease", 0.2);
+        double zLimit = TestConfig.getDouble("perf.zScore", 3);
+        int flagged = 0;
+        for (Map.Entry<String, Map<Long, double[]>> entry : byName.entrySet()) {
+            double[] current = entry.getValue().get(currentRun);
+            if (current == null) {
+                continue;
+            }
+            double currentMean = current[0] / current[1];
+            List<Double> baseline = new ArrayList<>();
+            for (Long run : baselineRuns) {
+                double[] total = entry.getValue().get(run);
+                if (total != null) {
+                    baseline.add(total[0] / total[1]);
+                }
+            }
+            if (baseline.size() < minRuns) {
+                continue;
+            }
+            double[] samples = new double[baseline.size()];
+            for (int i = 0; i < samples.length; i++) {
+                samples[i] = baseline.get(i);
+            }
+            double median = Stats.median(samples);
+            double spread = Math.max(1.4826 * Stats.medianAbsoluteDeviation(samples), MIN_SPREAD_MICROS);
+            double z = (currentMean - median) / spread;
+            if (currentMean > median * (1 + minIncrease) && z > zLimit) {
+                flagged++;
+                lines.add(String.format("SLOWER  %-60s %9.1f ms (baseline median %9.1f ms, +%.0f%%, z=%.1f, %d runs)",
+                    entry.getKey(), currentMean / 1000, median / 1000, (currentMean / median - 1) * 100, z, samples.length));
+            }
+        }
+        if (flagged == 0) {
+            lines.add("No significant slowdowns.");
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,108 @@
+package utils;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Suite-wide cache for read-only page-object queries
+ * Facts about the shop that do not change during a run (menu size, contact details, page
+ * titles) are looked up by the first test that needs them and reused by the others.
+ * Entries are keyed by page URL and query name and expire after the TTL; page objects drop
+ * the entries of a page when an action changes what it shows (e.g. login). Concurrent tests
+ * asking for the same entry wait for a single lookup. Results that fail the cacheable check
+ * (e.g. an element that was not found) are returned but not stored.
+ *
+ * Settings (-Delteshop.*):
+ * - queryCache=true              set to false to look everything up again in every test
+ * - queryCache.ttlSeconds=600    lifetime of an entry
+ */
+public final class QueryCache {
+    private static final ConcurrentMap<String, Entry> ENTRIES = new ConcurrentHashMap<>();
+    private static final AtomicLong HITS = new AtomicLong();
+    private static final AtomicLong MISSES = new AtomicLong();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            if (HITS.get() + MISSES.get() > 0) {
+                System.out.println("Query cache: " + HITS.get() + " hit(s), " + MISSES.get() + " lookup(s)");
+            }
+        }));
+    }
+
+    private QueryCache() {
+    }
+
+    private static final class Entry {
+        final FutureTask<Object> task;
+        final long expiresNanos;
+
+        Entry(FutureTask<Object> task, long ttlNanos) {
+            this.task = task;
+            this.expiresNanos = System.nanoTime() + ttlNanos;
+        }
+
+        boolean isExpired() {
+            return System.nanoTime() - expiresNanos > 0;
+        }
+    }
+
+    /**
+     * Get a cached query result, looking it up on the calling thread when missing or expired
+     * @param pageUrl URL of the page the query reads
+     * @param query Query name
+     * @param lookup Reads the value from the browser
+     * @param cacheable Whether a looked up value may be stored
+     * @param <T> Value type
+     * @return Cached or looked up value
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T get(String pageUrl, String query, Supplier<T> lookup, Predicate<? super T> cacheable) {
+        if (!TestConfig.getBoolean("queryCache", true)) {
+            return lookup.get();
+        }
+        String key = pageUrl + "#" + query;
+        long ttlNanos = TimeUnit.SECONDS.toNanos(TestConfig.getInt("queryCache.ttlSeconds", 600));
+        Entry created = new Entry(new FutureTask<>(lookup::get), ttlNanos);
+        Entry entry = ENTRIES.compute(key, (k, existing) -> existing == null || existing.isExpired() ? created : existing);
+        if (entry == created) {
+            MISSES.incrementAndGet();
+            entry.task.run();
+        } else {
+            HITS.incrementAndGet();
+        }
+        try {
+            T value = (T) entry.task.get();
+            if (entry == created && !cacheable.test(value)) {
+                ENTRIES.remove(key, entry);
+            }
+            return value;
+        } catch (ExecutionException e) {
+            // Failed lookups are not cached, the next caller tries again
+            ENTRIES.remove(key, entry);
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for query " + key, e);
+        }
+    }
+
+    /**
+     * Drop all cached query results of a page
+     * @param pageUrl Page URL
+     */
+    public static void invalidatePage(String pageUrl) {
+        ENTRIES.keySet().removeIf(key -> key.startsWith(pageUrl + "#"));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,41 @@
+package utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Conditions a run was made under (network profile and browser cache mode)
+ * The label is added to the names stored in the performance history, so that
+ * runs under different conditions are compared with their own baseline.
+ */
+public final class RunVariant {
+
+    private RunVariant() {
+    }
+
+    /**
+     * @return Variant label such as "net=3g" or "net=3g,cache=warm", or an empty string for default conditions
+     */
+    public static String label() {
+        List<String> parts = new ArrayList<>();
+        NetworkProfile profile = NetworkProfile.current();
+        if (profile != NetworkProfile.NONE) {
+            parts.add("net=" + profile.getProfileName());
+        }
+        BrowserCacheMode cacheMode = BrowserCacheMode.current();
+        if (cacheMode != BrowserCacheMode.DEFAULT) {
+            parts.add("cache=" + cacheMode.getModeName());
+        }
+        return String.join(",", parts);
+    }
+
+    /**
+     * Add the variant label to a measurement name
+     * @param name Measurement name
+     * @return Name with " [label]" appended, or the name itself for default conditions
+     */
+    public static String tag(String name) {
+        String label = label();
+        return label.isEmpty() ? name : name + " [" + label + "]";
+    }
+}
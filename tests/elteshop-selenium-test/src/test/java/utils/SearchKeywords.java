@@ -0,0 +1,47 @@
+package utils;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Search keyword corpus
+ * Read from src/test/resources/search-keywords.txt, or from the file given with
+ * -Delteshop.keywordsFile. One keyword per line, lines starting with # are comments.
+ */
+public final class SearchKeywords {
+
+    private SearchKeywords() {
+    }
+
+    /**
+     * Load the keyword corpus
+     * @return Distinct keywords in file order
+     * @throws IOException if the keyword file cannot be read
+     */
+    public static List<String> load() throws IOException {
+        String file = TestConfig.getString("keywordsFile", "");
+        InputStream in = file.isEmpty() ? SearchKeywords.class.getResourceAsStream("/search-keywords.txt") : new FileInputStream(file);
+        if (in == null) {
+            throw new IOException("search-keywords.txt not found on the test classpath");
+        }
+        Set<String> keywords = new LinkedHashSet<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    keywords.add(line);
+                }
+            }
+        }
+        return new ArrayList<>(keywords);
+    }
+}
\ No newline at end of file
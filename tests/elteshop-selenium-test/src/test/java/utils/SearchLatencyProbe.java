@@ -0,0 +1,81 @@
+package utils;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-page probe for keystroke latency of a text input
+ * Records the keydown time of each key, the first animation frame after the input event,
+ * and the frame after the last DOM change around the input (the surrounding header or form,
+ * and popups added to the body such as autocomplete lists). A key's latency runs from its
+ * keydown until the later of those frames, once the page has been quiet for a short while.
+ *
+ * Settings (-Delteshop.bench.*):
+ * - bench.quietMs=150     time without DOM changes after which a key counts as handled
+ * - bench.maxKeyMs=3000   give up waiting for a key after this time
+ */
+public final class SearchLatencyProbe {
+    private static final String INSTALL_SCRIPT =
+        "var input = arguments[0];" +
+        "if (window.__latencyProbe) { window.__latencyProbe.observer.disconnect(); }" +
+        "var probe = {keydown: 0, inputFrame: 0, lastMutation: 0, lastMutationFrame: 0};" +
+        "function afterFrame(field) { requestAnimationFrame(function () { probe[field] = performance.now(); }); }" +
+        "input.addEventListener('keydown', function (e) {" +
+        "  probe.keydown = performance.now(); probe.inputFrame = 0; probe.lastMutation = 0; probe.lastMutationFrame = 0;" +
+        "}, true);" +
+        "input.addEventListener('input', function () { afterFrame('inputFrame'); }, true);" +
+        "probe.observer = new MutationObserver(function () {" +
+        "  probe.lastMutation = performance.now();" +
+        "  afterFrame('lastMutationFrame');" +
+        "});" +
+        "probe.observer.observe(input.closest('header') || input.form || input.parentNode," +
+        "  {childList: true, subtree: true, characterData: true, attributes: true});" +
+        "probe.observer.observe(document.body, {childList: true});" +
+        "window.__latencyProbe = probe;";
+    private static final String AWAIT_KEY_SCRIPT =
+        "var quietMs = arguments[0], maxMs = arguments[1], done = arguments[arguments.length - 1];" +
+        "var probe = window.__latencyProbe, start = performance.now();" +
+        "(function check() {" +
+        "  var now = performance.now();" +
+        "  var rendered = probe.inputFrame > 0 && probe.lastMutationFrame >= probe.lastMutation;" +
+        "  if (rendered && now - Math.max(probe.keydown, probe.lastMutation) >= quietMs) {" +
+        "    done(Math.max(probe.inputFrame, probe.lastMutationFrame) - probe.keydown);" +
+        "  } else if (now - start >= maxMs) {" +
+        "    done(-1);" +
+        "  } else {" +
+        "    setTimeout(check, 10);" +
+        "  }" +
+        "})();";
+
+    private final WebDriver driver;
+
+    private SearchLatencyProbe(WebDriver driver) {
+        this.driver = driver;
+    }
+
+    /**
+     * Install the probe on an input of the current page
+     * @param driver WebDriver instance
+     * @param input Input to watch
+     * @return Probe
+     */
+    public static SearchLatencyProbe install(WebDriver driver, WebElement input) {
+        int maxKeyMs = TestConfig.getInt("bench.maxKeyMs", 3000);
+        driver.manage().timeouts().setScriptTimeout(maxKeyMs + 5000, TimeUnit.MILLISECONDS);
+        ((JavascriptExecutor) driver).executeScript(INSTALL_SCRIPT, input);
+        return new SearchLatencyProbe(driver);
+    }
+
+    /**
+     * Wait until the page has handled the last key sent to the input
+     * @return Latency of the key in milliseconds, or NaN when the page did not settle in time
+     */
+    public double awaitKeyLatency() {
+        Object result = ((JavascriptExecutor) driver).executeAsyncScript(AWAIT_KEY_SCRIPT,
+            TestConfig.getInt("bench.quietMs", 150), TestConfig.getInt("bench.maxKeyMs", 3000));
+        double latency = ((Number) result).doubleValue();
+        return latency < 0 ? Double.NaN : latency;
+    }
+}
@@ -0,0 +1,356 @@
+package utils;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.openqa.selenium.remote.SessionId;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Registry of the browser sessions created by the suite
+ * Every session is written to a ledger file of this test JVM (session-ledger/) when it is
+ * created and marked as closed when it is quit. Sessions that are still open when the JVM
+ * exits (e.g. setup failed after the session was created) are deleted through the Grid's
+ * session API. Ledgers left behind by a killed test JVM are found on the next start (their
+ * lock file is no longer held) and their sessions are deleted before the first test asks
+ * for a browser slot, so leaked sessions do not hold Grid slots until the Grid's timeout.
+ * A ledger is only removed once the Grid deleted its sessions or no longer knows them;
+ * otherwise it keeps the remaining sessions for the next start.
+ * On exit the registry prints session lifetimes, leaks and the Grid's slot occupancy.
+ *
+ * Settings (-Delteshop.*):
+ * - grid.url=http://selenium:4444/wd/hub   Grid URL
+ * - grid.ledgerDir=session-ledger          directory of the ledger files
+ */
+public final class SessionRegistry {
+    private static final String LEDGER_SUFFIX = ".sessions";
+    private static final String LOCK_SUFFIX = ".lock";
+    private static final int HTTP_TIMEOUT_MILLIS = 10000;
+    private static final SessionRegistry INSTANCE = new SessionRegistry();
+
+    private final File ledgerDir = new File(TestConfig.getString("grid.ledgerDir", "session-ledger"));
+    private final String jvmId = "jvm-" + System.currentTimeMillis() + "-" + Integer.toHexString(ThreadLocalRandom.current().nextInt());
+    private final File ledgerFile = new File(ledgerDir, jvmId + LEDGER_SUFFIX);
+    // Session id to creation time (System.nanoTime)
+    private final Map<String, Long> openSessions = new LinkedHashMap<>();
+    private FileChannel lockChannel;
+    private int created;
+    private int closed;
+    private int leaked;
+    private int reapedAtStartup;
+    private long totalLifetimeNanos;
+    private long maxLifetimeNanos;
+
+    private SessionRegistry() {
+        ledgerDir.mkdirs();
+        reapCrashedRuns();
+        try {
+            // Held until the JVM exits; a ledger whose lock can be taken belongs to a dead JVM
+            lockChannel = FileChannel.open(new File(ledgerDir, jvmId + LOCK_SUFFIX).toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            lockChannel.lock();
+        } catch (IOException e) {
+            System.err.println("Session registry: could not lock ledger " + ledgerFile.getPath() + ": " + e.getMessage());
+        }
+        System.out.println("Session registry: " + describeGridOccupancy());
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown));
+    }
+
+    /**
+     * Get the registry of this JVM
+     * The first call deletes sessions left behind by killed test JVMs.
+     * @return Registry
+     */
+    public static SessionRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return Grid URL (-Delteshop.grid.url)
+     * @throws MalformedURLException if the configured URL is malformed
+     */
+    public static URL gridUrl() throws MalformedURLException {
+        return new URL(TestConfig.getString("grid.url", "http://selenium:4444/wd/hub"));
+    }
+
+    /**
+     * Record a newly created session
+     * @param driver Driver of the session (instrumented or not)
+     */
+    public synchronized void register(WebDriver driver) {
+        String sessionId = sessionIdOf(driver);
+        if (sessionId == null || openSessions.containsKey(sessionId)) {
+            return;
+        }
+        openSessions.put(sessionId, System.nanoTime());
+        created++;
+        appendToLedger("+", sessionId);
+    }
+
+    /**
+     * Quit a session and record it as closed
+     * A session whose quit fails stays open in the ledger and is deleted on exit.
+     * @param driver Driver of the session (instrumented or not)
+     */
+    public void quit(WebDriver driver) {
+        String sessionId = sessionIdOf(driver);
+        driver.quit();
+        if (sessionId != null) {
+            closed(sessionId, false);
+        }
+    }
+
+    private synchronized void closed(String sessionId, boolean reaped) {
+        Long createdNanos = openSessions.remove(sessionId);
+        if (createdNanos == null) {
+            return;
+        }
+        long lifetime = System.nanoTime() - createdNanos;
+        totalLifetimeNanos += lifetime;
+        maxLifetimeNanos = Math.max(maxLifetimeNanos, lifetime);
+        if (reaped) {
+            leaked++;
+        } else {
+            closed++;
+        }
+        appendToLedger("-", sessionId);
+    }
+
+    private static String sessionIdOf(WebDriver driver) {
+        WebDriver target = InstrumentedDriver.unwrap(driver);
+        if (!(target instanceof RemoteWebDriver)) {
+            return null;
+        }
+        SessionId sessionId = ((RemoteWebDriver) target).getSessionId();
+        return sessionId == null ? null : sessionId.toString();
+    }
+
+    private void appendToLedger(String action, String sessionId) {
+        try (Writer writer = new FileWriter(ledgerFile, true)) {
+            writer.write(action + " " + sessionId + " " + System.currentTimeMillis() + "\n");
+        } catch (IOException e) {
+            System.err.println("Session registry: could not write ledger " + ledgerFile.getPath() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Delete the sessions of ledgers whose JVM is no longer running
+     */
+    private void reapCrashedRuns() {
+        File[] ledgers = ledgerDir.listFiles((dir, name) -> name.endsWith(LEDGER_SUFFIX));
+        if (ledgers == null) {
+            return;
+        }
+        for (File ledger : ledgers) {
+            String owner = ledger.getName().substring(0, ledger.getName().length() - LEDGER_SUFFIX.length());
+            File lockFile = new File(ledgerDir, owner + LOCK_SUFFIX);
+            try (FileChannel channel = FileChannel.open(lockFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                FileLock lock = channel.tryLock();
+                if (lock == null) {
+                    // Owner is still running (e.g. another fork of this run)
+                    continue;
+                }
+                List<String> remaining = new ArrayList<>();
+                for (String sessionId : readOpenSessions(ledger)) {
+                    if (deleteSession(sessionId)) {
+                        reapedAtStartup++;
+                        System.out.println("Session registry: deleted session " + sessionId + " left behind by " + owner);
+                    } else if (!Boolean.FALSE.equals(sessionExists(sessionId))) {
+                        remaining.add(sessionId);
+                    }
+                }
+                if (!remaining.isEmpty()) {
+                    // Keep the sessions that may still be open, the next start tries again
+                    StringBuilder text = new StringBuilder();
+                    for (String sessionId : remaining) {
+                        text.append("+ ").append(sessionId).append(' ').append(System.currentTimeMillis()).append('\n');
+                    }
+                    Files.write(ledger.toPath(), text.toString().getBytes(StandardCharsets.UTF_8));
+                    System.err.println("Session registry: " + remaining.size() + " session(s) left behind by " + owner
+                        + " could not be deleted, keeping them in " + ledger.getPath());
+                    continue;
+                }
+                lock.release();
+            } catch (IOException e) {
+                System.err.println("Session registry: could not check ledger " + ledger.getPath() + ": " + e.getMessage());
+                continue;
+            }
+            ledger.delete();
+            lockFile.delete();
+        }
+    }
+
+    private static Set<String> readOpenSessions(File ledger) throws IOException {
+        Set<String> open = new LinkedHashSet<>();
+        for (String line : Files.readAllLines(ledger.toPath(), StandardCharsets.UTF_8)) {
+            String[] parts = line.split(" ");
+            if (parts.length < 2) {
+                continue;
+            }
+            if ("+".equals(parts[0])) {
+                open.add(parts[1]);
+            } else {
+                open.remove(parts[1]);
+            }
+        }
+        return open;
+    }
+
+    private void shutdown() {
+        List<String> remaining;
+        synchronized (this) {
+            remaining = new ArrayList<>(openSessions.keySet());
+        }
+        for (String sessionId : remaining) {
+            System.err.println("Session registry: session " + sessionId + " was not quit, deleting it");
+            if (deleteSession(sessionId)) {
+                closed(sessionId, true);
+            }
+        }
+        synchronized (this) {
+            System.out.println(String.format("Session registry: %d session(s) created, %d quit, %d leaked and deleted, "
+                    + "%d still open, %d deleted from killed runs; lifetime avg %.1f s / max %.1f s; %s",
+                created, closed, leaked, openSessions.size(), reapedAtStartup,
+                closed + leaked == 0 ? 0.0 : totalLifetimeNanos / 1e9 / (closed + leaked), maxLifetimeNanos / 1e9,
+                describeGridOccupancy()));
+            if (openSessions.isEmpty()) {
+                ledgerFile.delete();
+            }
+        }
+        try {
+            if (lockChannel != null) {
+                lockChannel.close();
+            }
+        } catch (IOException e) {
+            // JVM is exiting, the lock is released anyway
+        }
+        if (!ledgerFile.exists()) {
+            new File(ledgerDir, jvmId + LOCK_SUFFIX).delete();
+        }
+    }
+
+    /**
+     * Describe how many Grid slots are in use
+     * Uses the hub's slot counts when the Grid is a hub, otherwise the running session count.
+     * @return Occupancy text
+     */
+    public String describeGridOccupancy() {
+        try {
+            URL gridUrl = gridUrl();
+            Map<String, Object> hub = request("GET", new URL(gridUrl, "/grid/api/hub"));
+            if (hub != null && hub.get("slotCounts") instanceof Map) {
+                Map<?, ?> slots = (Map<?, ?>) hub.get("slotCounts");
+                Number free = (Number) slots.get("free");
+                Number total = (Number) slots.get("total");
+                return "Grid slots in use: " + (total.intValue() - free.intValue()) + " of " + total;
+            }
+            Map<String, Object> sessions = request("GET", new URL(gridUrl + "/sessions"));
+            if (sessions != null && sessions.get("value") instanceof List) {
+                return "Grid sessions running: " + ((List<?>) sessions.get("value")).size()
+                    + " (configured slots: " + TestConfig.getInt("grid.slots", 1) + ")";
+            }
+        } catch (IOException | RuntimeException e) {
+            return "Grid occupancy unknown (" + e.getMessage() + ")";
+        }
+        return "Grid occupancy unknown";
+    }
+
+    private static boolean deleteSession(String sessionId) {
+        try {
+            Map<String, Object> response = request("DELETE", new URL(gridUrl() + "/session/" + sessionId));
+            // JSON wire protocol answers with status 0, the W3C protocol with a null value
+            Object status = response == null ? null : response.get("status");
+            Object value = response == null ? null : response.get("value");
+            return response != null && (status == null || ((Number) status).intValue() == 0)
+                && !(value instanceof Map && ((Map<?, ?>) value).containsKey("error"));
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Session registry: could not delete session " + sessionId + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Ask the Grid whether a session is still open
+     * @return True if it is open, false if the Grid does not know it, null if the Grid cannot be asked
+     */
+    private static Boolean sessionExists(String sessionId) {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(gridUrl() + "/session/" + sessionId).openConnection();
+            connection.setConnectTimeout(HTTP_TIMEOUT_MILLIS);
+            connection.setReadTimeout(HTTP_TIMEOUT_MILLIS);
+            try {
+                int code = connection.getResponseCode();
+                if (code < 300) {
+                    return Boolean.TRUE;
+                }
+                if (code == HttpURLConnection.HTTP_NOT_FOUND) {
+                    return Boolean.FALSE;
+                }
+                InputStream in = connection.getErrorStream();
+                if (in == null) {
+                    return null;
+                }
+                Map<String, Object> response;
+                try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+                    response = new Json().toType(reader, Json.MAP_TYPE);
+                }
+                // JSON wire protocol: status 6 (no such session); W3C protocol: "invalid session id"
+                Object status = response == null ? null : response.get("status");
+                Object value = response == null ? null : response.get("value");
+                if ((status instanceof Number && ((Number) status).intValue() == 6)
+                        || (value instanceof Map && "invalid session id".equals(((Map<?, ?>) value).get("error")))) {
+                    return Boolean.FALSE;
+                }
+                return null;
+            } finally {
+                connection.disconnect();
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Session registry: could not look up session " + sessionId + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Send a request to the Grid
+     * @return Parsed JSON response, or null for an error status
+     */
+    private static Map<String, Object> request(String method, URL url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod(method);
+        connection.setConnectTimeout(HTTP_TIMEOUT_MILLIS);
+        connection.setReadTimeout(HTTP_TIMEOUT_MILLIS);
+        try {
+            if (connection.getResponseCode() >= 300) {
+                return null;
+            }
+            try (InputStream in = connection.getInputStream();
+                 Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+                return new Json().toType(reader, Json.MAP_TYPE);
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package utils;
+
+import java.util.Arrays;
+
+/**
+ * Small statistics helpers for timing samples
+ */
+public final class Stats {
+
+    private Stats() {
+    }
+
+    /**
+     * Get percentile using linear interpolation
+     * @param values Samples (not modified)
+     * @param percentile Percentile between 0 and 100
+     * @return Percentile value, or NaN for no samples
+     */
+    public static double percentile(double[] values, double percentile) {
+        if (values.length == 0) {
+            return Double.NaN;
+        }
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        double position = (sorted.length - 1) * percentile / 100.0;
+        int lower = (int) Math.floor(position);
+        int upper = (int) Math.ceil(position);
+        return sorted[lower] + (sorted[upper] - sorted[lower]) * (position - lower);
+    }
+
+    /**
+     * Get median
+     * @param values Samples (not modified)
+     * @return Median, or NaN for no samples
+     */
+    public static double median(double[] values) {
+        return percentile(values, 50);
+    }
+
+    /**
+     * Get median absolute deviation
+     * @param values Samples (not modified)
+     * @return MAD, or NaN for no samples
+     */
+    public static double medianAbsoluteDeviation(double[] values) {
+        double median = median(values);
+        double[] deviations = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            deviations[i] = Math.abs(values[i] - median);
+        }
+        return median(deviations);
+    }
+}
@@ -0,0 +1,64 @@
+package utils;
+
+/**
+ * Test configuration helper
+ * Reads optional settings passed as -Delteshop.* system properties
+ * (build.gradle forwards them from the Gradle command line to the test JVM)
+ */
+public final class TestConfig {
+    private static final String PREFIX = "elteshop.";
+
+    private TestConfig() {
+    }
+
+    /**
+     * Get string setting
+     * @param key Setting name without the "elteshop." prefix
+     * @param defaultValue Value used when the setting is not given
+     * @return Setting value
+     */
+    public static String getString(String key, String defaultValue) {
+        String value = System.getProperty(PREFIX + key);
+        return value == null || value.trim().isEmpty() ? defaultValue : value.trim();
+    }
+
+    /**
+     * Get integer setting
+     * @param key Setting name without the "elteshop." prefix
+     * @param defaultValue Value used when the setting is not given or invalid
+     * @return Setting value
+     */
+    public static int getInt(String key, int defaultValue) {
+        try {
+            return Integer.parseInt(getString(key, String.valueOf(defaultValue)));
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid integer for " + PREFIX + key + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Get decimal setting
+     * @param key Setting name without the "elteshop." prefix
+     * @param defaultValue Value used when the setting is not given or invalid
+     * @return Setting value
+     */
+    public static double getDouble(String key, double defaultValue) {
+        try {
+            return Double.parseDouble(getString(key, String.valueOf(defaultValue)));
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid number for " + PREFIX + key + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Get boolean setting
+     * @param key Setting name without the "elteshop." prefix
+     * @param defaultValue Value used when the setting is not given
+     * @return Setting value
+     */
+    public static boolean getBoolean(String key, boolean defaultValue) {
+        return Boolean.parseBoolean(getString(key, String.valueOf(defaultValue)));
+    }
+}
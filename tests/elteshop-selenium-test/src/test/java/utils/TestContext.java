@@ -0,0 +1,308 @@
+package utils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-test measurement context
+ * Holds the running test's name and the time spent in each page-object step
+ * and page load. Driver commands and waits report into the context of the
+ * thread that runs the test. Other threads (e.g. the deadline watchdog) do not see
+ * it; code running there is given the context explicitly.
+ */
+public final class TestContext {
+    // Not inheritable: pool threads started during a test would keep reporting into it
+    private static final ThreadLocal<TestContext> CURRENT = new ThreadLocal<>();
+    private static final long NOT_TIMED = -1L;
+    private static final long NESTED = -2L;
+
+    private final String testName;
+    private final long startNanos;
+    private final Map<String, long[]> steps = new LinkedHashMap<>();
+    private final Map<String, long[]> pageLoads = new LinkedHashMap<>();
+    // Step name to {WebDriver commands, bytes sent to and received from the Grid}
+    private final Map<String, long[]> traffic = new LinkedHashMap<>();
+    // Time that does not count against the test (see extendDeadline)
+    private long excludedNanos;
+    private int timingDepth;
+    // Absolute System.nanoTime() deadline, Long.MAX_VALUE when the test has none
+    private volatile long deadlineNanos = Long.MAX_VALUE;
+
+    private TestContext(String testName) {
+        this.testName = testName;
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Start context for a test on the current thread
+     * @param testName Test name (Class.method)
+     * @return New context
+     */
+    public static TestContext start(String testName) {
+        TestContext context = new TestContext(testName);
+        CURRENT.set(context);
+        return context;
+    }
+
+    /**
+     * Get context of the running test
+     * @return Context, or null outside of a test
+     */
+    public static TestContext current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Remove context from the current thread
+     */
+    public static void finish() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Begin timing a driver command or wait
+     * Only the outermost timed section is recorded, so commands issued while a wait
+     * polls are counted as part of the wait
+     * @return Token to pass to endTiming
+     */
+    public static long beginTiming() {
+        TestContext context = current();
+        if (context == null) {
+            return NOT_TIMED;
+        }
+        synchronized (context) {
+            return context.timingDepth++ == 0 ? System.nanoTime() : NESTED;
+        }
+    }
+
+    /**
+     * End timing started with beginTiming
+     * @param token Token returned by beginTiming
+     * @param pageLoadUrl URL when the section was a page load, otherwise null
+     */
+    public static void endTiming(long token, String pageLoadUrl) {
+        TestContext context = current();
+        if (context == null || token == NOT_TIMED) {
+            return;
+        }
+        synchronized (context) {
+            context.timingDepth--;
+            if (token == NESTED) {
+                return;
+            }
+            long elapsed = System.nanoTime() - token;
+            add(context.steps, currentStep(), elapsed);
+            if (pageLoadUrl != null) {
+                add(context.pageLoads, pageLoadUrl, elapsed);
+            }
+        }
+    }
+
+    /**
+     * Record time for a step that does not go through the instrumented driver
+     * @param step Step name
+     * @param elapsedNanos Elapsed time in nanoseconds
+     */
+    public static void recordStep(String step, long elapsedNanos) {
+        TestContext context = current();
+        if (context != null) {
+            synchronized (context) {
+                add(context.steps, step, elapsedNanos);
+            }
+        }
+    }
+
+    /**
+     * Count WebDriver traffic of the current page-object step
+     * Unlike the step timings, commands issued while a wait polls are counted one by one.
+     * @param commands WebDriver commands
+     * @param bytes Bytes sent to and received from the Grid
+     */
+    public static void recordTraffic(int commands, long bytes) {
+        TestContext context = current();
+        if (context == null) {
+            return;
+        }
+        String step = currentStep();
+        synchronized (context) {
+            long[] total = context.traffic.get(step);
+            if (total == null) {
+                total = new long[2];
+                context.traffic.put(step, total);
+            }
+            total[0] += commands;
+            total[1] += bytes;
+        }
+    }
+
+    /**
+     * Get time left before the running test's deadline
+     * @return Milliseconds left (negative when passed), or Long.MAX_VALUE without deadline or test
+     */
+    public static long remainingMillis() {
+        TestContext context = current();
+        return context == null ? Long.MAX_VALUE : context.getRemainingMillis();
+    }
+
+    /**
+     * Move the running test's deadline back, for time that should not count
+     * against the test (e.g. waiting in the browser slot queue)
+     * @param nanos Nanoseconds to add
+     */
+    public static void extendDeadline(long nanos) {
+        TestContext context = current();
+        if (context == null) {
+            return;
+        }
+        synchronized (context) {
+            context.excludedNanos += nanos;
+        }
+        if (context.deadlineNanos != Long.MAX_VALUE) {
+            context.deadlineNanos += nanos;
+        }
+    }
+
+    /**
+     * Set deadline of this test
+     * @param budgetNanos Time budget from now in nanoseconds
+     */
+    public void setDeadline(long budgetNanos) {
+        this.deadlineNanos = System.nanoTime() + budgetNanos;
+    }
+
+    /**
+     * @return Milliseconds left before this test's deadline (negative when passed),
+     *         or Long.MAX_VALUE without deadline
+     */
+    public long getRemainingMillis() {
+        long deadline = deadlineNanos;
+        return deadline == Long.MAX_VALUE ? Long.MAX_VALUE : (deadline - System.nanoTime()) / 1000000;
+    }
+
+    /**
+     * @return Whether the test has a deadline and it has passed
+     */
+    public boolean isPastDeadline() {
+        return deadlineNanos != Long.MAX_VALUE && System.nanoTime() - deadlineNanos > 0;
+    }
+
+    /**
+     * Describe where the test's time went, slowest steps first
+     * @return Breakdown text
+     */
+    public synchronized String describeTimeSpent() {
+        List<Map.Entry<String, long[]>> entries = new ArrayList<>(steps.entrySet());
+        entries.sort((a, b) -> Long.compare(b.getValue()[0], a.getValue()[0]));
+        long tracked = 0;
+        StringBuilder text = new StringBuilder();
+        for (Map.Entry<String, long[]> entry : entries) {
+            tracked += entry.getValue()[0];
+            text.append(String.format("%n  %-55s %9.1f s (%d calls)",
+                entry.getKey(), entry.getValue()[0] / 1e9, entry.getValue()[1]));
+        }
+        text.append(String.format("%n  %-55s %9.1f s", "(untracked)", Math.max(0, getElapsedNanos() - tracked) / 1e9));
+        return String.format("Time spent in %s: %.1f s total", testName, getElapsedNanos() / 1e9) + text;
+    }
+
+    /**
+     * Find the page-object step the current thread is executing
+     * The step is the outermost pages.* method on the stack (the one a test called).
+     * Infrastructure and JDK frames between page-object frames (e.g. QueryCache running a
+     * page object's lambda) are passed over, so lambdas are attributed to their method.
+     * Calls made outside page objects are attributed to the calling test method.
+     * @return Step name (SimpleClass.method)
+     */
+    public static String currentStep() {
+        StackTraceElement[] trace = new Throwable().getStackTrace();
+        String step = null;
+        for (StackTraceElement frame : trace) {
+            String className = frame.getClassName();
+            if (className.startsWith("pages.")) {
+                step = stepName(className, frame.getMethodName());
+            } else if (step != null && isPassThrough(className)) {
+                continue;
+            } else if (step != null) {
+                return step;
+            } else if (className.startsWith("tests.")) {
+                return stepName(className, frame.getMethodName());
+            }
+        }
+        return step == null ? "(other)" : step;
+    }
+
+    private static boolean isPassThrough(String className) {
+        return className.startsWith("utils.") || className.startsWith("java.") || className.startsWith("jdk.")
+            || className.startsWith("sun.");
+    }
+
+    private static String stepName(String className, String methodName) {
+        String simpleName = className.substring(className.lastIndexOf('.') + 1);
+        int nested = simpleName.indexOf('$');
+        if (nested >= 0) {
+            simpleName = simpleName.substring(0, nested);
+        }
+        return simpleName + "." + methodName;
+    }
+
+    private static void add(Map<String, long[]> totals, String key, long elapsedNanos) {
+        long[] total = totals.get(key);
+        if (total == null) {
+            total = new long[2];
+            totals.put(key, total);
+        }
+        total[0] += elapsedNanos;
+        total[1]++;
+    }
+
+    /**
+     * @return Test name (Class.method)
+     */
+    public String getTestName() {
+        return testName;
+    }
+
+    /**
+     * @return Nanoseconds since the test started
+     */
+    public long getElapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    /**
+     * @return Copy of step totals: step name to {total nanoseconds, count}
+     */
+    public synchronized Map<String, long[]> getSteps() {
+        return copy(steps);
+    }
+
+    /**
+     * @return Nanoseconds that did not count against the test (slot queueing, cache warm-up, ...)
+     */
+    public synchronized long getExcludedNanos() {
+        return excludedNanos;
+    }
+
+    /**
+     * @return Copy of traffic totals: step name to {WebDriver commands, bytes}
+     */
+    public synchronized Map<String, long[]> getTraffic() {
+        return copy(traffic);
+    }
+
+    /**
+     * @return Copy of page load totals: URL to {total nanoseconds, count}
+     */
+    public synchronized Map<String, long[]> getPageLoads() {
+        return copy(pageLoads);
+    }
+
+    private static Map<String, long[]> copy(Map<String, long[]> source) {
+        Map<String, long[]> result = new LinkedHashMap<>();
+        for (Map.Entry<String, long[]> entry : source.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().clone());
+        }
+        return result;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,117 @@
+package utils;
+
+import org.junit.rules.TestRule;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+import org.openqa.selenium.WebDriver;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * JUnit rule that gives each test a time budget
+ * The deadline is stored in the test's TestContext, so every TimedWait (including the
+ * page objects' waits) gives up when the budget runs out instead of using its full timeout.
+ * A test that finishes past its deadline fails with a DeadlineExceededException that
+ * shows where the time went. When a single driver command hangs past the deadline plus
+ * the grace period, a watchdog quits the session so the blocked command returns and the
+ * worker moves on. Time spent waiting for a browser slot does not count.
+ * Must run inside PerformanceRecorder (it needs the test's TestContext).
+ *
+ * Settings (-Delteshop.*):
+ * - test.deadlineSeconds=180     default budget, override per test with @Deadline
+ * - test.deadlineGraceSeconds=30 extra time before the watchdog quits a hung session
+ * - test.deadline=true           set to false to run without deadlines
+ */
+public class TestDeadline implements TestRule {
+    private static final ScheduledExecutorService WATCHDOG = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "test-deadline-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Supplier<WebDriver> driverSupplier;
+    private volatile boolean aborted;
+
+    /**
+     * Constructor
+     * @param driverSupplier Supplies the test's driver once it has been created
+     */
+    public TestDeadline(Supplier<WebDriver> driverSupplier) {
+        this.driverSupplier = driverSupplier;
+    }
+
+    /**
+     * @return Whether the watchdog quit the session of the last test
+     */
+    public boolean wasAborted() {
+        return aborted;
+    }
+
+    @Override
+    public Statement apply(final Statement base, final Description description) {
+        if (!TestConfig.getBoolean("test.deadline", true)) {
+            return base;
+        }
+        return new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+                TestContext context = TestContext.current();
+                if (context == null) {
+                    base.evaluate();
+                    return;
+                }
+                Deadline annotation = description.getAnnotation(Deadline.class);
+                long budgetSeconds = annotation != null ? annotation.seconds() : TestConfig.getInt("test.deadlineSeconds", 180);
+                context.setDeadline(TimeUnit.SECONDS.toNanos(budgetSeconds));
+                aborted = false;
+                ScheduledFuture<?> watchdog = scheduleWatchdog(context, budgetSeconds);
+                try {
+                    base.evaluate();
+                } catch (DeadlineExceededException e) {
+                    throw e;
+                } catch (Throwable t) {
+                    if (context.isPastDeadline()) {
+                        throw exceeded(context, budgetSeconds, t);
+                    }
+                    throw t;
+                } finally {
+                    watchdog.cancel(false);
+                }
+                if (context.isPastDeadline()) {
+                    throw exceeded(context, budgetSeconds, null);
+                }
+            }
+        };
+    }
+
+    private ScheduledFuture<?> scheduleWatchdog(final TestContext context, final long budgetSeconds) {
+        final long graceMillis = TimeUnit.SECONDS.toMillis(TestConfig.getInt("test.deadlineGraceSeconds", 30));
+        return WATCHDOG.scheduleWithFixedDelay(() -> {
+            // The deadline may have moved (slot queueing), so check the remaining time each round
+            if (aborted || -context.getRemainingMillis() < graceMillis) {
+                return;
+            }
+            WebDriver driver = driverSupplier.get();
+            if (driver == null) {
+                return;
+            }
+            aborted = true;
+            System.err.println("Test deadline of " + budgetSeconds + " s passed by more than the grace period, "
+                + "quitting the session of " + context.getTestName() + "\n" + context.describeTimeSpent());
+            try {
+                // Unwrapped, so the quit is not timed into a test context from this thread
+                SessionRegistry.getInstance().quit(InstrumentedDriver.unwrap(driver));
+            } catch (RuntimeException e) {
+                System.err.println("Could not quit the session: " + e.getMessage());
+            }
+        }, 1, 1, TimeUnit.SECONDS);
+    }
+
+    private static DeadlineExceededException exceeded(TestContext context, long budgetSeconds, Throwable cause) {
+        return new DeadlineExceededException("Test exceeded its deadline of " + budgetSeconds + " s\n"
+            + context.describeTimeSpent(), cause);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,68 @@
+package utils;
+
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.ui.WebDriverWait;
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Explicit wait that reports its duration (including polling sleeps)
+ * to the running test's TestContext
+ * Waits that succeed only after most of their timeout are logged, which shows when
+ * a timeout is too tight (e.g. under an emulated slow network).
+ * When the running test has a deadline (see TestDeadline) the wait uses the smaller of
+ * its own timeout and the time left, and throws DeadlineExceededException when it runs out.
+ */
+public class TimedWait extends WebDriverWait {
+    // Share of the timeout after which a successful wait is reported as close to timing out
+    private static final double NEAR_TIMEOUT_SHARE = 0.8;
+
+    private final long timeOutInSeconds;
+
+    /**
+     * Constructor
+     * @param driver WebDriver instance
+     * @param timeOutInSeconds Timeout in seconds
+     */
+    public TimedWait(WebDriver driver, long timeOutInSeconds) {
+        super(driver, timeOutInSeconds);
+        this.timeOutInSeconds = timeOutInSeconds;
+    }
+
+    @Override
+    public <V> V until(Function<? super WebDriver, V> isTrue) {
+        long remainingMillis = TestContext.remainingMillis();
+        if (remainingMillis <= 0) {
+            throw deadlineExceeded(isTrue, null);
+        }
+        boolean limitedByDeadline = remainingMillis < timeOutInSeconds * 1000;
+        withTimeout(Duration.ofMillis(limitedByDeadline ? remainingMillis : timeOutInSeconds * 1000));
+
+        long token = TestContext.beginTiming();
+        long start = System.nanoTime();
+        try {
+            V result = super.until(isTrue);
+            long elapsedMillis = (System.nanoTime() - start) / 1000000;
+            if (elapsedMillis > timeOutInSeconds * 1000 * NEAR_TIMEOUT_SHARE) {
+                System.out.println("Slow wait: " + isTrue + " took " + elapsedMillis + " ms of its "
+                    + timeOutInSeconds + " s timeout [" + TestContext.currentStep() + "]");
+            }
+            return result;
+        } catch (TimeoutException e) {
+            if (limitedByDeadline) {
+                throw deadlineExceeded(isTrue, e);
+            }
+            throw e;
+        } finally {
+            TestContext.endTiming(token, null);
+        }
+    }
+
+    private DeadlineExceededException deadlineExceeded(Function<? super WebDriver, ?> isTrue, TimeoutException cause) {
+        TestContext context = TestContext.current();
+        String breakdown = context == null ? "" : "\n" + context.describeTimeSpent();
+        return new DeadlineExceededException("Test deadline reached while waiting for " + isTrue
+            + " [" + TestContext.currentStep() + "]" + breakdown, cause);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,89 @@
+package utils;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Visual baseline store
+ * Compares screenshots with the PNG baselines kept in src/test/resources/visual-baselines
+ * and writes actual/diff images to build/reports/visual only when a check fails.
+ * A check without a baseline is skipped (not passed) unless baselines are being recorded.
+ *
+ * Settings (-Delteshop.visual.*):
+ * - visual.update=true       record the current screenshots as new baselines
+ * - visual.threshold=0.01    allowed share of differing pixels
+ * - visual.tolerance=16      allowed per-channel color difference
+ */
+public final class VisualBaseline {
+    private static final File BASELINE_DIR = new File(TestConfig.getString("visual.baselineDir", "src/test/resources/visual-baselines"));
+    private static final File REPORT_DIR = new File(TestConfig.getString("visual.reportDir", "build/reports/visual"));
+
+    private VisualBaseline() {
+    }
+
+    /**
+     * Assert that a screenshot matches its stored baseline
+     * @param name Baseline name (file name without extension)
+     * @param actual Current screenshot
+     */
+    public static void assertMatches(String name, BufferedImage actual) {
+        assertMatches(name, actual, TestConfig.getDouble("visual.threshold", 0.01));
+    }
+
+    /**
+     * Assert that a screenshot matches its stored baseline
+     * @param name Baseline name (file name without extension)
+     * @param actual Current screenshot
+     * @param threshold Allowed share of differing pixels between 0 and 1
+     */
+    public static void assertMatches(String name, BufferedImage actual, double threshold) {
+        File baselineFile = new File(BASELINE_DIR, name + ".png");
+        if (TestConfig.getBoolean("visual.update", false)) {
+            write(actual, baselineFile);
+            System.out.println("Visual check '" + name + "': baseline recorded at " + baselineFile.getPath());
+            return;
+        }
+        if (!baselineFile.exists()) {
+            // Nothing to compare with, so the check is reported as skipped instead of passed
+            write(actual, new File(REPORT_DIR, name + "-actual.png"));
+            Assume.assumeTrue("Visual check '" + name + "': no baseline at " + baselineFile.getPath()
+                + ", record it with -Delteshop.visual.update=true (screenshot in " + REPORT_DIR.getPath() + ")", false);
+        }
+
+        int tolerance = TestConfig.getInt("visual.tolerance", 16);
+        long start = System.nanoTime();
+        ImageDiff diff = ImageDiff.compare(read(baselineFile), actual);
+        ImageDiff.Result result = diff.run(tolerance);
+        System.out.println("Visual check '" + name + "': " + result + " in " + (System.nanoTime() - start) / 1000000 + " ms");
+
+        if (result.exceeds(threshold)) {
+            write(actual, new File(REPORT_DIR, name + "-actual.png"));
+            if (!result.isSizeMismatch()) {
+                write(diff.diffImage(tolerance), new File(REPORT_DIR, name + "-diff.png"));
+            }
+            Assert.fail("Visual check '" + name + "' failed: " + result + " (threshold "
+                + String.format("%.3f%%", threshold * 100) + "), see " + REPORT_DIR.getPath());
+        }
+    }
+
+    private static BufferedImage read(File file) {
+        try {
+            return ImageIO.read(file);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read baseline " + file.getPath(), e);
+        }
+    }
+
+    private static void write(BufferedImage image, File file) {
+        try {
+            file.getParentFile().mkdirs();
+            ImageIO.write(image, "png", file);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not write image " + file.getPath(), e);
+        }
+    }
+}